@@ -2,16 +2,25 @@ package ca.wescook.nutrition;
 
 import net.minecraftforge.common.MinecraftForge;
 
+import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.effects.EffectsWorker;
 import ca.wescook.nutrition.events.EventAllowOvereating;
 import ca.wescook.nutrition.events.EventEatFood;
+import ca.wescook.nutrition.events.EventOreRegister;
 import ca.wescook.nutrition.events.EventPlayerDeath;
 import ca.wescook.nutrition.events.EventPlayerJoinWorld;
+import ca.wescook.nutrition.events.EventPlayerLogout;
+import ca.wescook.nutrition.events.EventServerTick;
 import ca.wescook.nutrition.events.EventWorldTick;
 import ca.wescook.nutrition.network.ModPacketHandler;
+import ca.wescook.nutrition.network.PacketRateLimiter;
+import ca.wescook.nutrition.network.ServerTaskQueue;
+import ca.wescook.nutrition.network.Sync;
 import ca.wescook.nutrition.potions.ModPotions;
 import ca.wescook.nutrition.proxy.CommonProxy;
 import ca.wescook.nutrition.utility.ChatCommand;
 import ca.wescook.nutrition.utility.Config;
+import ca.wescook.nutrition.utility.ConfigWatcher;
 import ca.wescook.nutrition.utility.DataImporter;
 import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.Mod;
@@ -22,6 +31,7 @@ import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
 import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import cpw.mods.fml.common.event.FMLServerStoppedEvent;
 
 @Mod(modid = Tags.MODID, name = Tags.MODNAME, version = Tags.VERSION)
 public class Nutrition {
@@ -43,9 +53,16 @@ public class Nutrition {
         MinecraftForge.EVENT_BUS.register(new EventPlayerJoinWorld());
         MinecraftForge.EVENT_BUS.register(new EventPlayerDeath());
         MinecraftForge.EVENT_BUS.register(new EventEatFood());
+        MinecraftForge.EVENT_BUS.register(new EventOreRegister());
         FMLCommonHandler.instance()
             .bus()
             .register(new EventWorldTick());
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new EventServerTick());
+        FMLCommonHandler.instance()
+            .bus()
+            .register(new EventPlayerLogout());
 
         // only register if allow over-eating is true
         if (Config.allowOverEating) {
@@ -60,11 +77,27 @@ public class Nutrition {
 
     @EventHandler
     public void postInit(FMLPostInitializationEvent event) {
-        DataImporter.reload();
+        // Clients receive nutrients from the server they join, so only dedicated servers load them here
+        if (!proxy.isClient()) DataImporter.reload();
     }
 
     @EventHandler
     public void serverStarting(FMLServerStartingEvent event) {
+        // Integrated server loads nutrients when started, shared with its client
+        if (proxy.isClient()) DataImporter.reload();
         event.registerServerCommand(new ChatCommand());
+        ConfigWatcher.start();
+    }
+
+    @EventHandler
+    public void serverStopped(FMLServerStoppedEvent event) {
+        // Player data is keyed by UUID, so don't carry it over into the next world
+        PlayerDataHandler.clear();
+        EffectsWorker.shutdown();
+        Sync.clear();
+        ServerTaskQueue.clear();
+        PacketRateLimiter.clear();
+        ConfigWatcher.stop();
+        DataImporter.shutdown();
     }
 }
@@ -1,18 +1,47 @@
 package ca.wescook.nutrition.data;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import net.minecraft.util.MathHelper;
 
+import ca.wescook.nutrition.effects.PlayerEffects;
+import ca.wescook.nutrition.nutrients.Definitions;
 import ca.wescook.nutrition.nutrients.Nutrient;
 import ca.wescook.nutrition.nutrients.NutrientList;
 
 public class NutrientManager {
 
+    // Nutrients the stored values are laid out for, indexed by Nutrient.ordinal
+    private List<Nutrient> nutrients = Collections.emptyList();
+
     // Stored nutrition for the attached player
-    private final Map<Nutrient, Float> nutrition = new HashMap<>();
+    private float[] values = new float[0];
+
+    // Map view of the stored values, kept for callers which need one
+    private final Map<Nutrient, Float> nutritionView = new NutritionView();
+
+    // Player's food level as of the last decay check (-1 if not checked yet)
+    private int lastFoodLevel = -1;
+
+    // Number of foods eaten, which the client uses to tell which of its predictions an update includes
+    private int foodSequence;
+
+    // Hunger gained this tick which hasn't (yet) been matched to a food being eaten
+    private int unattributedHunger;
+    private int lastHungerAddition;
+
+    // Effects evaluated for this player, and which nutrients have changed since (by ordinal)
+    private final PlayerEffects effects = new PlayerEffects();
+    private final BitSet changedNutrients = new BitSet();
 
     public NutrientManager() {
         this(new HashMap<>());
@@ -22,52 +51,181 @@ public class NutrientManager {
         update(nutrientData);
     }
 
+    // Lay out values saved for the supplied nutrient names (in the same order) onto the registered nutrients
+    // Names still in the same position are matched without a lookup
+    public NutrientManager(String[] names, float[] savedValues) {
+        Definitions definitions = NutrientList.getDefinitions();
+        List<Nutrient> current = definitions.getNutrients();
+        float[] loaded = startingValues(current);
+        for (int i = 0; i < names.length && i < savedValues.length; i++) {
+            Nutrient nutrient = (i < current.size() && current.get(i).name.equals(names[i])) ? current.get(i)
+                : definitions.getNutrient(names[i]);
+            if (nutrient != null) loaded[nutrient.ordinal] = savedValues[i];
+        }
+
+        nutrients = current;
+        values = loaded;
+        changedNutrients.set(0, values.length);
+    }
+
     // Return all nutrients and values
+    // This is a live view, writes are passed through to the stored values
     public Map<Nutrient, Float> get() {
-        return nutrition;
+        return nutritionView;
+    }
+
+    // Return nutrients the stored values are laid out for
+    public List<Nutrient> getNutrients() {
+        return nutrients;
     }
 
-    // Return value of specific nutrient
-    public Float get(Nutrient nutrient) {
-        return nutrition.get(nutrient);
+    // Return if a value is stored for specific nutrient
+    public boolean has(Nutrient nutrient) {
+        return nutrient != null && nutrient.ordinal < values.length && nutrients.get(nutrient.ordinal) == nutrient;
+    }
+
+    // Return stored values, indexed by Nutrient.ordinal
+    // Read only! Changes must go through set/add/subtract so that effects are re-evaluated
+    public float[] getValues() {
+        return values;
+    }
+
+    // Return value of specific nutrient (0 if not stored)
+    public float get(Nutrient nutrient) {
+        return has(nutrient) ? values[nutrient.ordinal] : 0;
     }
 
     // Set value of specific nutrient
-    public void set(Nutrient nutrient, Float value) {
-        nutrition.put(nutrient, value);
+    public void set(Nutrient nutrient, float value) {
+        if (has(nutrient)) setValue(nutrient.ordinal, value);
     }
 
     // Update all nutrients
     public void set(Map<Nutrient, Float> nutrientData) {
-        nutrition.putAll(nutrientData);
+        for (Map.Entry<Nutrient, Float> entry : nutrientData.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
     }
 
     // Increase specific nutrient by amount
     public void add(Nutrient nutrient, float amount) {
-        float currentAmount = nutrition.get(nutrient);
-        nutrition.put(nutrient, MathHelper.clamp_float(currentAmount + amount, 0, 100));
+        if (has(nutrient)) {
+            setValue(nutrient.ordinal, MathHelper.clamp_float(values[nutrient.ordinal] + amount, 0, 100));
+        }
     }
 
     // Increase list of nutrients by amount
     public void add(List<Nutrient> nutrientData, float amount) {
         for (Nutrient nutrient : nutrientData) {
-            nutrition.put(nutrient, MathHelper.clamp_float(nutrition.get(nutrient) + amount, 0, 100));
+            add(nutrient, amount);
         }
     }
 
     // Decrease specific nutrient by amount
     public void subtract(Nutrient nutrient, float amount) {
-        float currentAmount = nutrition.get(nutrient);
-        nutrition.put(nutrient, MathHelper.clamp_float(currentAmount - amount, 0, 100));
+        if (has(nutrient)) {
+            setValue(nutrient.ordinal, MathHelper.clamp_float(values[nutrient.ordinal] - amount, 0, 100));
+        }
     }
 
     // Decrease list of nutrients by amount
     public void subtract(List<Nutrient> nutrientData, float amount) {
         for (Nutrient nutrient : nutrientData) {
-            nutrition.put(nutrient, MathHelper.clamp_float(nutrition.get(nutrient) - amount, 0, 100));
+            subtract(nutrient, amount);
+        }
+    }
+
+    // Lower all nutrients after the player's food level dropped by the supplied amount
+    public void decay(int foodLost) {
+        for (int i = 0; i < values.length; i++) {
+            float decay = (float) (foodLost * 0.075 * nutrients.get(i).decay); // Lower number for reasonable starting
+            // point, then apply multiplier from
+            // config
+            setValue(i, MathHelper.clamp_float(values[i] - decay, 0, 100)); // Subtract decay from nutrient
+        }
+    }
+
+    // Move all nutrients towards 50 (starting value) by amount, returning if any changed
+    public boolean normalize(float amount) {
+        boolean wasChanged = false;
+        for (int i = 0; i < values.length; i++) {
+            float currentValue = values[i];
+            if (currentValue > 50f) {
+                wasChanged = true;
+                setValue(i, Math.max(50f, currentValue - amount));
+            } else if (currentValue < 50f) {
+                wasChanged = true;
+                setValue(i, Math.min(50f, currentValue + amount));
+            }
+        }
+        return wasChanged;
+    }
+
+    // All changes to stored values go through here, so that effects are only re-evaluated when something moved
+    private void setValue(int ordinal, float value) {
+        if (values[ordinal] != value) {
+            values[ordinal] = value;
+            changedNutrients.set(ordinal);
         }
     }
 
+    // Return if values have changed since effects were last evaluated
+    public boolean isEffectsDirty() {
+        return !changedNutrients.isEmpty();
+    }
+
+    // Return ordinals of nutrients changed since effects were last evaluated
+    // Cleared by EffectsManager once evaluated
+    public BitSet getChangedNutrients() {
+        return changedNutrients;
+    }
+
+    // Return effects evaluated for this player
+    public PlayerEffects getEffects() {
+        return effects;
+    }
+
+    // Record the player's current food level, returning how much it has dropped since the last call
+    public int trackFoodLevel(int foodLevel) {
+        int dropped = (lastFoodLevel >= 0) ? lastFoodLevel - foodLevel : 0;
+        lastFoodLevel = foodLevel;
+        return dropped;
+    }
+
+    public int getFoodSequence() {
+        return foodSequence;
+    }
+
+    // Carried over when player data is copied, eg. on respawn
+    public void setFoodSequence(int foodSequence) {
+        this.foodSequence = foodSequence;
+    }
+
+    // Called on the server for every food eaten, matching each prediction made by the client
+    public void incrementFoodSequence() {
+        foodSequence++;
+    }
+
+    // Record hunger gained, which is attributed to food if it's eaten in the same tick
+    public void addHunger(int hunger) {
+        unattributedHunger += hunger;
+        lastHungerAddition = hunger;
+    }
+
+    // The latest hunger gained came from food being eaten
+    public void attributeHungerToFood() {
+        unattributedHunger -= lastHungerAddition;
+        lastHungerAddition = 0;
+    }
+
+    // Return hunger gained without eating since the last call
+    public int takeUnattributedHunger() {
+        int hunger = unattributedHunger;
+        unattributedHunger = 0;
+        lastHungerAddition = 0;
+        return hunger;
+    }
+
     // Reset specific nutrient to default nutrition
     public void reset(Nutrient nutrient) {
         set(nutrient, (float) nutrient.startingNutrition);
@@ -75,28 +233,154 @@ public class NutrientManager {
 
     // Reset all nutrients to default nutrition
     public void reset() {
-        for (Nutrient nutrient : nutrition.keySet()) // Loop through player's nutrients
+        for (Nutrient nutrient : nutrients) // Loop through player's nutrients
             reset(nutrient);
     }
 
+    // Remap stored values onto the currently registered nutrients, keeping values by nutrient name
     public void update() {
-        update(nutrition);
+        Definitions definitions = NutrientList.getDefinitions(); // Read once, in case of a reload part way through
+        List<Nutrient> current = definitions.getNutrients();
+        if (nutrients == current) return; // Already up to date
+
+        int[] remapTable = definitions.getRemapTable(nutrients);
+        if (isIdentity(remapTable, current.size())) { // Same nutrients in the same order, so values are kept as is
+            nutrients = current;
+            return;
+        }
+
+        float[] remapped = startingValues(current);
+        for (int i = 0; i < remapTable.length; i++) {
+            if (remapTable[i] >= 0) remapped[remapTable[i]] = values[i];
+        }
+
+        nutrients = current;
+        values = remapped;
+        changedNutrients.set(0, values.length);
     }
 
-    // todo rewrite this!!
+    // Replace stored values with supplied data, matching nutrients by name
     public void update(Map<Nutrient, Float> data) {
-        // Copy map by value, not by reference
-        Map<Nutrient, Float> nutritionOld = new HashMap<>(data);
-
-        nutrition.clear();
-        loop: for (Nutrient nutrient : NutrientList.get()) {
-            for (Map.Entry<Nutrient, Float> nutrientOld : nutritionOld.entrySet()) {
-                if (nutrient.name.equals(nutrientOld.getKey().name)) {
-                    nutrition.put(nutrient, nutrientOld.getValue());
-                    continue loop;
+        Definitions definitions = NutrientList.getDefinitions();
+        List<Nutrient> current = definitions.getNutrients();
+        float[] updated = startingValues(current);
+        for (Map.Entry<Nutrient, Float> entry : data.entrySet()) {
+            if (entry.getKey() == null) continue;
+            Nutrient nutrient = definitions.getNutrient(entry.getKey().name);
+            if (nutrient != null) updated[nutrient.ordinal] = entry.getValue();
+        }
+
+        nutrients = current;
+        values = updated;
+        changedNutrients.set(0, values.length);
+    }
+
+    private static boolean isIdentity(int[] remapTable, int size) {
+        if (remapTable.length != size) return false;
+        for (int i = 0; i < remapTable.length; i++) {
+            if (remapTable[i] != i) return false;
+        }
+        return true;
+    }
+
+    private static float[] startingValues(List<Nutrient> nutrients) {
+        float[] startingValues = new float[nutrients.size()];
+        for (int i = 0; i < startingValues.length; i++) {
+            startingValues[i] = nutrients.get(i).startingNutrition;
+        }
+        return startingValues;
+    }
+
+    // Write-through map view over the stored values
+    private class NutritionView extends AbstractMap<Nutrient, Float> {
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Nutrient && has((Nutrient) key);
+        }
+
+        @Override
+        public Float get(Object key) {
+            return containsKey(key) ? values[((Nutrient) key).ordinal] : null;
+        }
+
+        @Override
+        public Float put(Nutrient key, Float value) {
+            Float previous = get(key);
+            set(key, value);
+            return previous;
+        }
+
+        @Override
+        public Set<Map.Entry<Nutrient, Float>> entrySet() {
+            return new AbstractSet<Map.Entry<Nutrient, Float>>() {
+
+                @Override
+                public int size() {
+                    return values.length;
                 }
-            }
-            nutrition.put(nutrient, (float) nutrient.startingNutrition);
+
+                @Override
+                public Iterator<Map.Entry<Nutrient, Float>> iterator() {
+                    return new Iterator<Map.Entry<Nutrient, Float>>() {
+
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < values.length;
+                        }
+
+                        @Override
+                        public Map.Entry<Nutrient, Float> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            return new NutritionEntry(index++);
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private class NutritionEntry implements Map.Entry<Nutrient, Float> {
+
+        private final int ordinal;
+
+        private NutritionEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public Nutrient getKey() {
+            return nutrients.get(ordinal);
+        }
+
+        @Override
+        public Float getValue() {
+            return values[ordinal];
+        }
+
+        @Override
+        public Float setValue(Float value) {
+            Float previous = values[ordinal];
+            NutrientManager.this.setValue(ordinal, value);
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry<?, ?> entry)) return false;
+            return getKey().equals(entry.getKey()) && getValue().equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ getValue().hashCode();
         }
     }
 }
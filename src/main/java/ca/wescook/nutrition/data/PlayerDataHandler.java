@@ -1,38 +1,113 @@
 package ca.wescook.nutrition.data;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.nbt.NBTTagString;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.common.util.Constants;
 
 import ca.wescook.nutrition.network.Sync;
 import ca.wescook.nutrition.nutrients.Nutrient;
 import ca.wescook.nutrition.nutrients.NutrientList;
+import ca.wescook.nutrition.nutrients.NutrientUtils;
 import ca.wescook.nutrition.proxy.ClientProxy;
+import ca.wescook.nutrition.utility.Config;
 import ca.wescook.nutrition.utility.Log;
 
 public class PlayerDataHandler {
 
+    // Legacy format: a float tag per nutrient name
     private static final String NBT_NUTRIENT_DATA = "Nutrients";
 
+    // Compact format: schema ID, table of nutrient names, and values packed into an int array
+    private static final String NBT_NUTRITION_DATA = "NutritionData";
+    private static final String NBT_SCHEMA = "Schema";
+    private static final String NBT_NAMES = "Names";
+    private static final String NBT_VALUES = "Values";
+    private static final int SCHEMA = 1;
+
+    // Rough per-player overhead of a stored entry (map node, UUID, manager and its map view), excluding values
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
     // HELD SERVER SIDE!!!
-    private static final Map<EntityPlayer, NutrientManager> MANAGER_STORAGE = new HashMap<>();
+    // Keyed by UUID rather than by entity, so that old player entities (and their worlds) aren't kept reachable
+    private static final Map<UUID, NutrientManager> MANAGER_STORAGE = new ConcurrentHashMap<>();
+
+    // Players who have logged out, evicted at the end of the tick once their data has been saved
+    private static final Set<UUID> PENDING_EVICTION = ConcurrentHashMap.newKeySet();
+
+    // Data saved in a newer format than this version understands, written back as is rather than overwritten
+    private static final Map<UUID, NBTTagCompound> UNKNOWN_DATA = new ConcurrentHashMap<>();
 
+    // Values are saved in the order of the player's nutrients, as float bits, along with the names of those nutrients
     public static void saveForPlayer(EntityPlayer player, NBTTagCompound tagCompound) {
-        NutrientManager manager = MANAGER_STORAGE.get(player);
+        NBTTagCompound unknownData = UNKNOWN_DATA.get(player.getUniqueID());
+        if (unknownData != null) {
+            tagCompound.setTag(NBT_NUTRITION_DATA, unknownData.copy());
+            return;
+        }
+
+        NutrientManager manager = MANAGER_STORAGE.get(player.getUniqueID());
         if (manager != null) {
-            NBTTagCompound playerData = new NBTTagCompound();
-            for (Nutrient nutrient : NutrientList.get()) {
-                if (manager.get(nutrient) != null) {
-                    playerData.setFloat(nutrient.name, manager.get(nutrient));
-                }
+            float[] values = manager.getValues();
+            int[] packedValues = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                packedValues[i] = Float.floatToRawIntBits(values[i]);
             }
-            tagCompound.setTag(NBT_NUTRIENT_DATA, playerData);
+
+            NBTTagCompound playerData = new NBTTagCompound();
+            playerData.setInteger(NBT_SCHEMA, SCHEMA);
+            playerData.setTag(NBT_NAMES, getNameTable(manager.getNutrients()));
+            playerData.setIntArray(NBT_VALUES, packedValues);
+            tagCompound.setTag(NBT_NUTRITION_DATA, playerData);
+            tagCompound.removeTag(NBT_NUTRIENT_DATA); // Upgraded from the legacy format, if it was loaded from it
         }
     }
 
     public static void initializeForPlayer(EntityPlayer player, NBTTagCompound tagCompound) {
+        UNKNOWN_DATA.remove(player.getUniqueID());
+        if (tagCompound.hasKey(NBT_NUTRITION_DATA, Constants.NBT.TAG_COMPOUND)) {
+            NBTTagCompound playerData = tagCompound.getCompoundTag(NBT_NUTRITION_DATA);
+            int schema = playerData.getInteger(NBT_SCHEMA);
+            if (schema == SCHEMA) {
+                NBTTagList nameTag = playerData.getTagList(NBT_NAMES, Constants.NBT.TAG_STRING);
+                String[] names = new String[nameTag.tagCount()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = nameTag.getStringTagAt(i);
+                }
+
+                int[] packedValues = playerData.getIntArray(NBT_VALUES);
+                float[] values = new float[packedValues.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Float.intBitsToFloat(packedValues[i]);
+                }
+
+                MANAGER_STORAGE.put(player.getUniqueID(), new NutrientManager(names, values));
+                return;
+            }
+
+            // Probably saved by a newer version, so keep it for that version rather than falling back to legacy data
+            // The player starts with default nutrition this session, which isn't saved
+            Log.warn(
+                "Unknown nutrition data format " + schema
+                    + " for player "
+                    + player.getGameProfile()
+                        .getName()
+                    + ", keeping it unchanged and using default nutrition");
+            UNKNOWN_DATA.put(player.getUniqueID(), (NBTTagCompound) playerData.copy());
+            return;
+        }
+
+        // Legacy format, which is replaced when next saved
         if (tagCompound.hasKey(NBT_NUTRIENT_DATA)) {
             NBTTagCompound nutrientTag = tagCompound.getCompoundTag(NBT_NUTRIENT_DATA);
             Map<Nutrient, Float> playerNutrients = new HashMap<>();
@@ -48,8 +123,18 @@ public class PlayerDataHandler {
 
                 playerNutrients.put(nutrient, value);
             }
-            MANAGER_STORAGE.put(player, new NutrientManager(playerNutrients));
+            MANAGER_STORAGE.put(player.getUniqueID(), new NutrientManager(playerNutrients));
+        }
+    }
+
+    // Return names of supplied nutrients as a tag
+    // Built for each save, as the tag becomes part of that player's data (which other mods may change)
+    private static NBTTagList getNameTable(List<Nutrient> nutrients) {
+        NBTTagList names = new NBTTagList();
+        for (Nutrient nutrient : nutrients) {
+            names.appendTag(new NBTTagString(nutrient.name));
         }
+        return names;
     }
 
     /** Get player nutrition data. SERVER SIDE ONLY!! On client, use {@link ClientProxy#localNutrition}. */
@@ -58,7 +143,7 @@ public class PlayerDataHandler {
             Log.warn("Tried to access server player data from the client! Attempting to use server player data...");
             return ClientProxy.localNutrition;
         }
-        NutrientManager manager = MANAGER_STORAGE.get(player);
+        NutrientManager manager = MANAGER_STORAGE.get(player.getUniqueID());
         if (manager == null) {
             // should only happen on initial data creation
             Log.info(
@@ -75,7 +160,7 @@ public class PlayerDataHandler {
             Log.warn("Tried to set server player data from the client!");
             return;
         }
-        MANAGER_STORAGE.put(player, manager);
+        MANAGER_STORAGE.put(player.getUniqueID(), manager);
         if (sync) Sync.serverRequest(player);
     }
 
@@ -85,4 +170,84 @@ public class PlayerDataHandler {
     public static void setForPlayer(EntityPlayer player, NutrientManager manager) {
         setForPlayer(player, manager, false);
     }
+
+    /** Lower player nutrition when their food level drops. Called from FoodStatsMixin. SERVER SIDE ONLY!! */
+    public static void onFoodLevelDecreased(EntityPlayer player, int foodLost) {
+        if (!Config.enableDecay || player.worldObj.isRemote) return;
+        getForPlayer(player).decay(foodLost);
+        Sync.serverRequest(player);
+    }
+
+    /**
+     * Normalize nutrition of players who gained hunger this tick without eating (eg. healing items, food cans), as if
+     * they had eaten food with that hunger value for all nutrients. Called at the end of each server tick.
+     */
+    public static void normalizeNonFoodHunger(List<EntityPlayerMP> players) {
+        for (int i = 0; i < players.size(); i++) {
+            EntityPlayerMP player = players.get(i);
+            NutrientManager manager = MANAGER_STORAGE.get(player.getUniqueID());
+            if (manager == null) continue;
+
+            int hunger = manager.takeUnattributedHunger();
+            if (hunger <= 0) continue;
+
+            manager.update();
+            float amount = NutrientUtils.getNutrientValue(
+                hunger,
+                NutrientList.get()
+                    .size());
+            if (manager.normalize(amount)) Sync.serverRequest(player); // Only update client if change was made
+        }
+    }
+
+    /**
+     * Mark player data for removal. Player data is written after the logout event fires, so entries are only evicted
+     * by {@link #evictLoggedOut(MinecraftServer)} at the end of the tick.
+     */
+    public static void scheduleEviction(EntityPlayer player) {
+        PENDING_EVICTION.add(player.getUniqueID());
+    }
+
+    // Remove data of players who logged out, unless they have since logged back in
+    public static void evictLoggedOut(MinecraftServer server) {
+        if (PENDING_EVICTION.isEmpty()) return;
+
+        for (UUID uuid : PENDING_EVICTION) {
+            PENDING_EVICTION.remove(uuid);
+            if (!isOnline(server, uuid)) {
+                MANAGER_STORAGE.remove(uuid);
+                UNKNOWN_DATA.remove(uuid);
+            }
+        }
+    }
+
+    private static boolean isOnline(MinecraftServer server, UUID uuid) {
+        for (EntityPlayerMP player : server.getConfigurationManager().playerEntityList) {
+            if (player.getUniqueID()
+                .equals(uuid)) return true;
+        }
+        return false;
+    }
+
+    // Remove all player data, eg. when the server stops
+    public static void clear() {
+        MANAGER_STORAGE.clear();
+        PENDING_EVICTION.clear();
+        UNKNOWN_DATA.clear();
+    }
+
+    // Number of players with stored data
+    public static int getStorageSize() {
+        return MANAGER_STORAGE.size();
+    }
+
+    // Rough estimate of memory retained by stored player data
+    public static long estimateRetainedBytes() {
+        long bytes = 0;
+        for (NutrientManager manager : MANAGER_STORAGE.values()) {
+            bytes += ENTRY_OVERHEAD_BYTES + 16 + ((manager.getNutrients()
+                .size() * 4L + 7) & ~7L); // Array header, then values padded to 8 bytes
+        }
+        return bytes;
+    }
 }
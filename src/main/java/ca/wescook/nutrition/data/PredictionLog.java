@@ -0,0 +1,87 @@
+package ca.wescook.nutrition.data;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+import ca.wescook.nutrition.nutrients.Nutrient;
+
+// Client-side record of nutrition changes predicted from eating, which the server hasn't confirmed yet
+// Each prediction is numbered in the same order the server counts foods eaten, so an update from the server says which
+// predictions it already includes. The rest are replayed on top of the server's values, so displayed nutrition doesn't
+// jump backwards while food is still on its way to the server.
+// Only used on the client thread (updates from the server are handed over to it, see ClientProxy#runOnClientThread)
+public class PredictionLog {
+
+    private static final int MAX_PREDICTIONS = 64;
+    private static final long PREDICTION_TIMEOUT_MILLIS = 5000; // Unconfirmed predictions are assumed lost after this
+
+    // Nutrition as last received from the server, without predictions
+    private NutrientManager confirmed;
+
+    private final Deque<Prediction> predictions = new ArrayDeque<>();
+    private int lastSequence; // Sequence number of the latest prediction (or server update if newer)
+
+    // Return nutrition as last received from the server (null if nothing received yet)
+    public NutrientManager getConfirmed() {
+        return confirmed;
+    }
+
+    // Return nutrition as last received from the server, creating it if nothing was received yet
+    public NutrientManager getOrCreateConfirmed() {
+        if (confirmed == null) confirmed = new NutrientManager();
+        confirmed.update(); // In case local nutrients were reloaded
+        return confirmed;
+    }
+
+    // Apply nutrients from a food eaten to local nutrition, and remember them until the server confirms
+    public void predictFood(NutrientManager localNutrition, Map<Nutrient, Float> amounts) {
+        for (Map.Entry<Nutrient, Float> entry : amounts.entrySet()) {
+            localNutrition.add(entry.getKey(), entry.getValue());
+        }
+
+        if (predictions.size() >= MAX_PREDICTIONS) predictions.removeFirst();
+        predictions.addLast(new Prediction(++lastSequence, amounts, System.currentTimeMillis()));
+    }
+
+    // Rebuild local nutrition from confirmed values, replaying predictions the server hasn't seen yet
+    // Called once an update from the server has been applied to confirmed values
+    public void reconcile(NutrientManager localNutrition, int serverSequence) {
+        long expiry = System.currentTimeMillis() - PREDICTION_TIMEOUT_MILLIS;
+        while (!predictions.isEmpty() && (predictions.peekFirst().sequence <= serverSequence
+            || predictions.peekFirst().time < expiry)) {
+            predictions.removeFirst();
+        }
+        if (predictions.isEmpty()) lastSequence = serverSequence; // Follow the server when nothing is pending
+
+        localNutrition.update();
+        for (Nutrient nutrient : localNutrition.getNutrients()) {
+            localNutrition.set(nutrient, confirmed.get(nutrient));
+        }
+        for (Prediction prediction : predictions) {
+            for (Map.Entry<Nutrient, Float> entry : prediction.amounts.entrySet()) {
+                localNutrition.add(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Forget everything, eg. when the server sends a new nutrient table (new connection or reload)
+    public void reset() {
+        confirmed = null;
+        predictions.clear();
+        lastSequence = 0;
+    }
+
+    private static class Prediction {
+
+        private final int sequence;
+        private final Map<Nutrient, Float> amounts;
+        private final long time;
+
+        private Prediction(int sequence, Map<Nutrient, Float> amounts, long time) {
+            this.sequence = sequence;
+            this.amounts = amounts;
+            this.time = time;
+        }
+    }
+}
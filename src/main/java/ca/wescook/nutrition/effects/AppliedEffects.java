@@ -0,0 +1,82 @@
+package ca.wescook.nutrition.effects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.potion.Potion;
+
+// Potion effects a player qualifies for, as potion and amplifier pairs
+// Immutable, so results can be handed between threads and kept while newer ones are evaluated
+public final class AppliedEffects {
+
+    public static final AppliedEffects EMPTY = new AppliedEffects(null, new Potion[0], new int[0]);
+
+    private final EffectsPlan plan; // Plan these were evaluated with (null if empty)
+    private final Potion[] potions;
+    private final int[] amplifiers;
+
+    private AppliedEffects(EffectsPlan plan, Potion[] potions, int[] amplifiers) {
+        this.plan = plan;
+        this.potions = potions;
+        this.amplifiers = amplifiers;
+    }
+
+    // Return if these results are still valid for the supplied plan
+    // Results from a plan since replaced by a reload may grant effects which no longer exist
+    public boolean isFor(EffectsPlan plan) {
+        return this.plan == null || this.plan == plan;
+    }
+
+    public int size() {
+        return potions.length;
+    }
+
+    public Potion getPotion(int index) {
+        return potions[index];
+    }
+
+    public int getAmplifier(int index) {
+        return amplifiers[index];
+    }
+
+    // Copies applied slots out of an evaluation buffer
+    static AppliedEffects of(EffectsPlan plan, int[] slotAmplifiers) {
+        int count = 0;
+        for (int amplifier : slotAmplifiers) {
+            if (amplifier != EffectsPlan.NOT_APPLIED) count++;
+        }
+        if (count == 0) return EMPTY;
+
+        Potion[] potions = new Potion[count];
+        int[] amplifiers = new int[count];
+        int index = 0;
+        for (int slot = 0; slot < slotAmplifiers.length; slot++) {
+            if (slotAmplifiers[slot] == EffectsPlan.NOT_APPLIED) continue;
+            potions[index] = plan.getPotion(slot);
+            amplifiers[index++] = slotAmplifiers[slot];
+        }
+        return new AppliedEffects(plan, potions, amplifiers);
+    }
+
+    // Return if these results match an evaluation buffer, so unchanged results can be kept without allocating
+    boolean matches(EffectsPlan plan, int[] slotAmplifiers) {
+        if (this.plan != null && this.plan != plan) return false;
+        int index = 0;
+        for (int slot = 0; slot < slotAmplifiers.length; slot++) {
+            if (slotAmplifiers[slot] == EffectsPlan.NOT_APPLIED) continue;
+            if (index >= potions.length || potions[index] != plan.getPotion(slot)
+                || amplifiers[index] != slotAmplifiers[slot]) return false;
+            index++;
+        }
+        return index == potions.length;
+    }
+
+    @Override
+    public String toString() {
+        List<String> effects = new ArrayList<>();
+        for (int i = 0; i < potions.length; i++) {
+            effects.add(potions[i].getName() + " " + amplifiers[i]);
+        }
+        return effects.toString();
+    }
+}
@@ -1,23 +1,37 @@
 package ca.wescook.nutrition.effects;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import net.minecraft.potion.Potion;
 
+import com.google.common.collect.ImmutableList;
+
 import ca.wescook.nutrition.nutrients.Nutrient;
 
-// todo clean up unnecessary parts of this class and better comment things, as well as value bounds checking
+// Effect definition, as parsed from JSON
+// Read only once created, as definitions are shared between all players (and threads evaluating them)
 public class Effect {
 
-    public String name;
-    public Potion potion;
-    public int amplifier;
-    public int minimum;
-    public int maximum;
-    public EnumDetectionType detectionType;
-    public List<Nutrient> nutrients = new ArrayList<>();
-    public int cumulativeModifier;
+    public final String name;
+    public final Potion potion;
+    public final int amplifier;
+    public final int minimum;
+    public final int maximum;
+    public final EnumDetectionType detectionType;
+    public final List<Nutrient> nutrients;
+    public final int cumulativeModifier;
+
+    public Effect(String name, Potion potion, int amplifier, int minimum, int maximum, EnumDetectionType detectionType,
+        List<Nutrient> nutrients, int cumulativeModifier) {
+        this.name = name;
+        this.potion = potion;
+        this.amplifier = amplifier;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.detectionType = detectionType;
+        this.nutrients = ImmutableList.copyOf(nutrients);
+        this.cumulativeModifier = cumulativeModifier;
+    }
 
     public enum EnumDetectionType {
         ANY, // Any nutrient may be in the threshold.
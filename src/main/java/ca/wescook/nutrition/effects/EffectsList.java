@@ -1,22 +1,23 @@
 package ca.wescook.nutrition.effects;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import ca.wescook.nutrition.nutrients.NutrientList;
+
 // Maintains information about effects (name, potion, nutrient conditions)
-// Stored client and server-side
+// Stored client and server-side, loaded along with nutrients (see Definitions)
 public class EffectsList {
 
-    private static List<Effect> EFFECTS = new ArrayList<>();
-
     // Return all parsed effects
     public static List<Effect> get() {
-        return EFFECTS;
+        return NutrientList.getDefinitions()
+            .getEffects();
     }
 
-    public static void register(List<Effect> effectsIn) {
-        EFFECTS.clear();
-        EFFECTS.addAll(effectsIn);
+    // Return effects compiled against the registered nutrients
+    public static EffectsPlan getPlan() {
+        return NutrientList.getDefinitions()
+            .getPlan();
     }
 
 }
@@ -0,0 +1,194 @@
+package ca.wescook.nutrition.effects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.potion.Potion;
+
+import ca.wescook.nutrition.nutrients.Nutrient;
+
+// Effects compiled against a specific nutrient layout, so that evaluating a player is a walk over flat arrays
+// Each rule reads nutrient values by ordinal, and rules granting the same potion share a slot which keeps the highest
+// amplifier
+public class EffectsPlan {
+
+    public static final EffectsPlan EMPTY = compile(Collections.emptyList(), Collections.emptyList());
+
+    // Returned by rules which don't currently apply
+    public static final int NOT_APPLIED = Integer.MIN_VALUE;
+
+    // Nutrient layout the ordinals below refer to
+    private final List<Nutrient> nutrients;
+
+    // Per rule
+    private final Effect.EnumDetectionType[] detectionTypes;
+    private final int[][] ruleNutrients;
+    private final float[] minimums;
+    private final float[] maximums;
+    private final int[] amplifiers;
+    private final int[] cumulativeModifiers;
+    private final int[] ruleSlots;
+
+    // Per potion slot
+    private final Potion[] potions;
+
+    // Per nutrient ordinal, the rules reading that nutrient
+    private final int[][] nutrientRules;
+
+    private EffectsPlan(List<Nutrient> nutrients, int ruleCount, Potion[] potions) {
+        this.nutrients = nutrients;
+        this.detectionTypes = new Effect.EnumDetectionType[ruleCount];
+        this.ruleNutrients = new int[ruleCount][];
+        this.minimums = new float[ruleCount];
+        this.maximums = new float[ruleCount];
+        this.amplifiers = new int[ruleCount];
+        this.cumulativeModifiers = new int[ruleCount];
+        this.ruleSlots = new int[ruleCount];
+        this.potions = potions;
+        this.nutrientRules = new int[nutrients.size()][];
+    }
+
+    // Compiles parsed effects against the supplied (registered) nutrients
+    public static EffectsPlan compile(List<Effect> effects, List<Nutrient> nutrients) {
+        // Give every distinct potion a slot
+        Map<Potion, Integer> slots = new IdentityHashMap<>();
+        for (Effect effect : effects) {
+            if (!slots.containsKey(effect.potion)) slots.put(effect.potion, slots.size());
+        }
+        Potion[] potions = new Potion[slots.size()];
+        for (Map.Entry<Potion, Integer> slot : slots.entrySet()) {
+            potions[slot.getValue()] = slot.getKey();
+        }
+
+        EffectsPlan plan = new EffectsPlan(nutrients, effects.size(), potions);
+        List<List<Integer>> nutrientRules = new ArrayList<>();
+        for (int i = 0; i < nutrients.size(); i++) nutrientRules.add(new ArrayList<>());
+
+        for (int rule = 0; rule < effects.size(); rule++) {
+            Effect effect = effects.get(rule);
+            plan.detectionTypes[rule] = effect.detectionType;
+            plan.minimums[rule] = effect.minimum;
+            plan.maximums[rule] = effect.maximum;
+            plan.amplifiers[rule] = effect.amplifier;
+            plan.cumulativeModifiers[rule] = effect.cumulativeModifier;
+            plan.ruleSlots[rule] = slots.get(effect.potion);
+
+            // Resolve nutrients to ordinals, dropping any which aren't part of this layout
+            int[] ordinals = new int[effect.nutrients.size()];
+            int count = 0;
+            for (Nutrient nutrient : effect.nutrients) {
+                if (nutrient.ordinal >= nutrients.size() || nutrients.get(nutrient.ordinal) != nutrient) continue;
+                ordinals[count++] = nutrient.ordinal;
+
+                List<Integer> dependents = nutrientRules.get(nutrient.ordinal);
+                if (dependents.isEmpty() || dependents.get(dependents.size() - 1) != rule) dependents.add(rule);
+            }
+            plan.ruleNutrients[rule] = Arrays.copyOf(ordinals, count);
+        }
+
+        for (int i = 0; i < nutrients.size(); i++) {
+            List<Integer> dependents = nutrientRules.get(i);
+            plan.nutrientRules[i] = new int[dependents.size()];
+            for (int j = 0; j < dependents.size(); j++) plan.nutrientRules[i][j] = dependents.get(j);
+        }
+
+        return plan;
+    }
+
+    // Return nutrient layout this plan was compiled against
+    public List<Nutrient> getNutrients() {
+        return nutrients;
+    }
+
+    public int getRuleCount() {
+        return ruleNutrients.length;
+    }
+
+    public int getSlotCount() {
+        return potions.length;
+    }
+
+    // Return potion granted by a slot
+    public Potion getPotion(int slot) {
+        return potions[slot];
+    }
+
+    // Evaluates rules for the supplied values (indexed by nutrient ordinal) into ruleResults
+    // If changedNutrients is null every rule is evaluated, otherwise only rules reading a changed nutrient
+    public void evaluate(float[] nutrition, BitSet changedNutrients, int[] ruleResults) {
+        if (changedNutrients == null) {
+            for (int rule = 0; rule < ruleResults.length; rule++) {
+                ruleResults[rule] = evaluateRule(rule, nutrition);
+            }
+            return;
+        }
+
+        // A rule reading several changed nutrients is evaluated again for each, which is cheaper than deduplicating
+        for (int i = changedNutrients.nextSetBit(0); i >= 0 && i < nutrientRules.length; i = changedNutrients
+            .nextSetBit(i + 1)) {
+            for (int rule : nutrientRules[i]) {
+                ruleResults[rule] = evaluateRule(rule, nutrition);
+            }
+        }
+    }
+
+    // Resolves the highest amplifier for each potion slot from rule results, in a single pass
+    public void resolve(int[] ruleResults, int[] slotAmplifiers) {
+        Arrays.fill(slotAmplifiers, NOT_APPLIED);
+        for (int rule = 0; rule < ruleResults.length; rule++) {
+            int slot = ruleSlots[rule];
+            if (ruleResults[rule] > slotAmplifiers[slot]) slotAmplifiers[slot] = ruleResults[rule];
+        }
+    }
+
+    // Returns the amplifier granted by a single rule, or NOT_APPLIED
+    private int evaluateRule(int rule, float[] nutrition) {
+        int[] ordinals = ruleNutrients[rule];
+        float minimum = minimums[rule];
+        float maximum = maximums[rule];
+
+        switch (detectionTypes[rule]) {
+            // If any nutrient is within the threshold
+            case ANY -> {
+                for (int ordinal : ordinals) {
+                    if (nutrition[ordinal] >= minimum && nutrition[ordinal] <= maximum) return amplifiers[rule];
+                }
+                return NOT_APPLIED;
+            }
+
+            // If the average of all nutrients is within the threshold
+            case AVERAGE -> {
+                float total = 0;
+                for (int ordinal : ordinals) total += nutrition[ordinal];
+                float average = (ordinals.length != 0) ? total / ordinals.length : -1f;
+                return (average >= minimum && average <= maximum) ? amplifiers[rule] : NOT_APPLIED;
+            }
+
+            // If all nutrients are within the threshold
+            case ALL -> {
+                for (int ordinal : ordinals) {
+                    if (!(nutrition[ordinal] >= minimum && nutrition[ordinal] <= maximum)) return NOT_APPLIED;
+                }
+                return amplifiers[rule];
+            }
+
+            // For each nutrient within the threshold, the amplifier increases by one
+            case CUMULATIVE -> {
+                int cumulativeCount = 0;
+                for (int ordinal : ordinals) {
+                    if (nutrition[ordinal] >= minimum && nutrition[ordinal] <= maximum) cumulativeCount++;
+                }
+                return (cumulativeCount > 0) ? (cumulativeCount * cumulativeModifiers[rule]) - 1 : NOT_APPLIED;
+            }
+
+            default -> {
+                return NOT_APPLIED;
+            }
+        }
+    }
+}
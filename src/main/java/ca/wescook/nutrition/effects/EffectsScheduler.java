@@ -0,0 +1,39 @@
+package ca.wescook.nutrition.effects;
+
+import java.util.List;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import ca.wescook.nutrition.utility.Config;
+
+// Spreads potion effect reapplication across the refresh interval
+// Each player is given a fixed tick offset from their UUID, so every tick handles roughly 1/interval of the players
+// while each player is still refreshed once per interval
+public class EffectsScheduler {
+
+    public static final int REFRESH_INTERVAL = 110; // Ticks between reapplying effects for a player
+
+    private static int tickCounter = 0;
+
+    // Called at the end of each server tick
+    public static void tick(List<EntityPlayerMP> players) {
+        // Apply anything evaluated off-thread since last tick
+        EffectsWorker.applyCompleted(players);
+
+        for (int i = 0; i < players.size(); i++) {
+            EntityPlayerMP player = players.get(i);
+            if (getOffset(player) == tickCounter) {
+                if (Config.asyncEffects) EffectsWorker.refresh(player);
+                else EffectsManager.reapplyEffects(player);
+            }
+        }
+        tickCounter = (tickCounter + 1) % REFRESH_INTERVAL;
+    }
+
+    private static int getOffset(EntityPlayerMP player) {
+        return Math.floorMod(
+            player.getUniqueID()
+                .hashCode(),
+            REFRESH_INTERVAL);
+    }
+}
@@ -0,0 +1,133 @@
+package ca.wescook.nutrition.effects;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import ca.wescook.nutrition.data.NutrientManager;
+import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.utility.Config;
+import ca.wescook.nutrition.utility.Log;
+
+// Evaluates effects on a small worker pool, so the server thread only snapshots nutrition and applies results
+// Results are handed back through a queue, and applied at the end of a later server tick
+public class EffectsWorker {
+
+    private static final Queue<Completed> COMPLETED = new ConcurrentLinkedQueue<>();
+    private static ExecutorService executor;
+
+    // Called from EffectsScheduler#tick on the server thread when a player is due a refresh
+    public static void refresh(EntityPlayerMP player) {
+        NutrientManager manager = PlayerDataHandler.getForPlayer(player);
+        EffectsPlan plan = EffectsList.getPlan();
+
+        // Player data must be laid out for the nutrients the plan was compiled against
+        manager.update();
+        if (manager.getNutrients() != plan.getNutrients()) return;
+
+        // Keep current effects running, anything new is applied once evaluated
+        PlayerEffects effects = manager.getEffects();
+        AppliedEffects current = effects.getResults();
+        if (current.isFor(plan)) EffectsManager.applyEffects(player, current);
+
+        // Nothing changed, or previous evaluation hasn't come back yet (changes are picked up next refresh)
+        if (effects.isPending() || !(effects.needsFullEvaluation(plan) || manager.isEffectsDirty())) return;
+
+        // Snapshot on the server thread, so the worker never reads live player data
+        float[] nutrition = manager.getValues()
+            .clone();
+        BitSet changedNutrients = (BitSet) manager.getChangedNutrients()
+            .clone();
+        UUID uuid = player.getUniqueID();
+
+        try {
+            effects.setPending(true);
+            getExecutor().execute(() -> {
+                AppliedEffects results = null;
+                try {
+                    results = effects.evaluate(plan, nutrition, changedNutrients);
+                } catch (RuntimeException e) {
+                    Log.error("Failed to evaluate effects: " + e);
+                    effects.invalidate();
+                } finally {
+                    COMPLETED.add(new Completed(uuid, effects, plan, results)); // Always hand back, to clear pending
+                }
+            });
+            manager.getChangedNutrients()
+                .clear();
+        } catch (RejectedExecutionException e) {
+            effects.setPending(false);
+        }
+    }
+
+    // Called at the end of each server tick, applying results evaluated since the last tick
+    public static void applyCompleted(List<EntityPlayerMP> players) {
+        if (COMPLETED.isEmpty()) return;
+
+        Map<UUID, EntityPlayerMP> online = new HashMap<>();
+        for (int i = 0; i < players.size(); i++) {
+            EntityPlayerMP player = players.get(i);
+            online.put(player.getUniqueID(), player);
+        }
+
+        Completed completed;
+        while ((completed = COMPLETED.poll()) != null) {
+            completed.effects.setPending(false);
+
+            // Drop results if the player left or respawned, or effects were reloaded meanwhile
+            EntityPlayerMP player = online.get(completed.uuid);
+            if (player == null || completed.results == null || completed.plan != EffectsList.getPlan()) continue;
+            NutrientManager manager = PlayerDataHandler.getForPlayer(player);
+            if (manager.getEffects() != completed.effects) continue;
+
+            EffectsManager.applyEffects(player, completed.results);
+        }
+    }
+
+    // Called when the server stops
+    public static void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        COMPLETED.clear();
+    }
+
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Config.effectWorkerThreads, runnable -> {
+                Thread thread = new Thread(runnable, "Nutrition Effects Worker #" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    // Results of one evaluation, along with what they were evaluated for
+    private static class Completed {
+
+        private final UUID uuid;
+        private final PlayerEffects effects;
+        private final EffectsPlan plan;
+        private final AppliedEffects results; // Null if evaluation failed
+
+        private Completed(UUID uuid, PlayerEffects effects, EffectsPlan plan, AppliedEffects results) {
+            this.uuid = uuid;
+            this.effects = effects;
+            this.plan = plan;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ca.wescook.nutrition.effects;
+
+import java.util.BitSet;
+
+// Effect evaluation state kept for each player between refreshes
+// Rule results are kept so that only rules reading a changed nutrient need evaluating again
+// Only one thread may evaluate a player at a time (see pending), but results may be read from anywhere
+public class PlayerEffects {
+
+    // Plan the buffers below were evaluated with (null if never evaluated)
+    private EffectsPlan plan;
+
+    // Reusable buffers: amplifier per rule, and highest amplifier per potion slot (EffectsPlan.NOT_APPLIED if none)
+    private int[] ruleResults = new int[0];
+    private int[] slotAmplifiers = new int[0];
+
+    // Latest results, only replaced when they differ
+    private volatile AppliedEffects results = AppliedEffects.EMPTY;
+
+    // If an evaluation has been handed to EffectsWorker and not come back yet (server thread only)
+    private boolean pending;
+
+    // Return latest evaluated results
+    public AppliedEffects getResults() {
+        return results;
+    }
+
+    // Return if these results are out of date for the supplied plan, regardless of nutrient changes
+    public boolean needsFullEvaluation(EffectsPlan plan) {
+        return this.plan != plan;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+
+    // Forget which plan was evaluated, so the next evaluation starts from scratch
+    public void invalidate() {
+        plan = null;
+    }
+
+    // Evaluates supplied values (indexed by nutrient ordinal), which must be laid out for the plan's nutrients
+    // Only rules reading changed nutrients are evaluated, unless the plan differs from the last evaluation
+    public AppliedEffects evaluate(EffectsPlan plan, float[] nutrition, BitSet changedNutrients) {
+        if (this.plan != plan) {
+            this.plan = plan;
+            if (ruleResults.length != plan.getRuleCount()) ruleResults = new int[plan.getRuleCount()];
+            if (slotAmplifiers.length != plan.getSlotCount()) slotAmplifiers = new int[plan.getSlotCount()];
+            changedNutrients = null; // Evaluate everything
+        }
+
+        plan.evaluate(nutrition, changedNutrients, ruleResults);
+        plan.resolve(ruleResults, slotAmplifiers);
+        if (!results.matches(plan, slotAmplifiers)) results = AppliedEffects.of(plan, slotAmplifiers);
+        return results;
+    }
+}
@@ -1,5 +1,6 @@
 package ca.wescook.nutrition.events;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import net.minecraft.entity.player.EntityPlayer;
@@ -7,15 +8,14 @@ import net.minecraft.item.Item;
 import net.minecraft.item.ItemBucketMilk;
 import net.minecraftforge.event.entity.player.PlayerUseItemEvent;
 
-import ca.wescook.nutrition.Nutrition;
 import ca.wescook.nutrition.data.NutrientManager;
 import ca.wescook.nutrition.data.PlayerDataHandler;
 import ca.wescook.nutrition.effects.EffectsManager;
+import ca.wescook.nutrition.network.Sync;
 import ca.wescook.nutrition.nutrients.Nutrient;
 import ca.wescook.nutrition.nutrients.NutrientUtils;
 import ca.wescook.nutrition.proxy.ClientProxy;
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
-import cpw.mods.fml.common.gameevent.TickEvent;
 import squeek.applecore.api.food.FoodEvent;
 
 /**
@@ -34,24 +34,25 @@ import squeek.applecore.api.food.FoodEvent;
  * As a result, we need to know if stats were modified directly without eating an actual food, so that
  * nutrition values are modified somehow to a "neutral state" by direct-modification methods.
  * <br>
- * This is achieved with a Stack, held in {@link ClientProxy}.
- * Hunger value stat changes are pushed to the stack, then popped when food is eaten. This results in
- * a "normal" food pushing the value, then popping it immediately after in the next event.
- * However, something which directly modifies hunger stat will never pop the change.
- * Those changes will be popped by {@link EventWorldTick#clientTickEvent(TickEvent.ClientTickEvent)}
- * at the end of each client game tick.
+ * This is tracked on the server, in each player's {@link NutrientManager}.
+ * Hunger gained is recorded, then attributed to food when it is eaten. This results in
+ * a "normal" food recording the value, then attributing it immediately after in the next event.
+ * However, something which directly modifies hunger stat will never be attributed.
+ * Those changes are normalized by {@link PlayerDataHandler#normalizeNonFoodHunger(java.util.List)}
+ * at the end of each server tick.
  */
 public class EventEatFood {
 
     @SubscribeEvent
     public void onFoodStatsChanged(FoodEvent.FoodStatsAddition event) {
-        if (Nutrition.proxy.isClient()) {
+        if (!event.player.getEntityWorld().isRemote) { // Server
             // only run if hunger value increases, also ignoring saturation
             int hungerValue = event.foodValuesToBeAdded.hunger;
             if (hungerValue <= 0) return;
 
             // set that stats have been changed, but food has not yet been eaten
-            ClientProxy.pushHungerChange(hungerValue);
+            PlayerDataHandler.getForPlayer(event.player)
+                .addHunger(hungerValue);
         }
     }
 
@@ -59,28 +60,21 @@ public class EventEatFood {
     public void onFoodEaten(FoodEvent.FoodEaten event) {
         // Calculate nutrition
         Map<Nutrient, Float> foundNutrients = NutrientUtils.getFoodNutrients(event.food);
-
-        if (foundNutrients.containsValue(0F)) {
-            float defaultValue = NutrientUtils.calculateNutrition(event.foodValues.hunger, foundNutrients);
-            for (Nutrient nutrient : foundNutrients.keySet()) {
-                if (foundNutrients.get(nutrient) == 0F) {
-                    foundNutrients.put(nutrient, defaultValue);
-                }
-            }
-        }
+        float defaultValue = NutrientUtils.calculateNutrition(event.foodValues.hunger, foundNutrients);
 
         // Add to each nutrient
         if (!event.player.getEntityWorld().isRemote) { // Server
             NutrientManager nutrientManager = PlayerDataHandler.getForPlayer(event.player);
-            for (Nutrient nutrient : foundNutrients.keySet()) {
-                nutrientManager.add(nutrient, foundNutrients.get(nutrient));
+            for (Map.Entry<Nutrient, Float> entry : foundNutrients.entrySet()) {
+                nutrientManager.add(entry.getKey(), NutrientUtils.resolveValue(entry.getValue(), defaultValue));
             }
-        } else { // Client
+
             // set that food has now been eaten
-            for (Nutrient nutrient : foundNutrients.keySet()) {
-                ClientProxy.localNutrition.add(nutrient, foundNutrients.get(nutrient));
-            }
-            ClientProxy.popHungerChange();
+            nutrientManager.attributeHungerToFood();
+            nutrientManager.incrementFoodSequence();
+            Sync.serverRequest(event.player);
+        } else { // Client
+            predictFood(foundNutrients, defaultValue);
         }
     }
 
@@ -95,6 +89,7 @@ public class EventEatFood {
         if (NutrientUtils.isSpecialFood(event.item)) {
             Map<Nutrient, Float> foundNutrients = NutrientUtils.getFoodNutrients(event.item);
 
+            float defaultValue = 0;
             if (foundNutrients.containsValue(0F)) {
                 Item item = event.item.getItem();
                 int value = 0;
@@ -104,27 +99,33 @@ public class EventEatFood {
                         EffectsManager.reapplyEffects(player);
                     }
                 }
-                float defaultValue = NutrientUtils.calculateNutrition(value, foundNutrients);
-                for (Nutrient nutrient : foundNutrients.keySet()) {
-                    if (foundNutrients.get(nutrient) == 0F) {
-                        foundNutrients.put(nutrient, defaultValue);
-                    }
-                }
+                defaultValue = NutrientUtils.calculateNutrition(value, foundNutrients);
             }
 
             // Add to each nutrient
             if (!player.getEntityWorld().isRemote) { // Server
                 NutrientManager nutrientManager = PlayerDataHandler.getForPlayer(player);
-                for (Nutrient nutrient : foundNutrients.keySet()) {
-                    nutrientManager.add(nutrient, foundNutrients.get(nutrient));
+                for (Map.Entry<Nutrient, Float> entry : foundNutrients.entrySet()) {
+                    nutrientManager.add(entry.getKey(), NutrientUtils.resolveValue(entry.getValue(), defaultValue));
                 }
+                nutrientManager.incrementFoodSequence();
+                Sync.serverRequest(player);
             } else { // Client
-                // set that food has now been eaten
-                for (Nutrient nutrient : foundNutrients.keySet()) {
-                    ClientProxy.localNutrition.add(nutrient, foundNutrients.get(nutrient));
-                }
+                predictFood(foundNutrients, defaultValue);
             }
         }
     }
 
+    // Apply food to local nutrition until the server confirms it
+    // Every food eaten is logged (even without nutrients), as the server counts them all
+    private static void predictFood(Map<Nutrient, Float> foundNutrients, float defaultValue) {
+        if (ClientProxy.localNutrition == null) return; // Nutrition hasn't been received yet
+
+        Map<Nutrient, Float> amounts = new LinkedHashMap<>();
+        for (Map.Entry<Nutrient, Float> entry : foundNutrients.entrySet()) {
+            amounts.put(entry.getKey(), NutrientUtils.resolveValue(entry.getValue(), defaultValue));
+        }
+        ClientProxy.predictions.predictFood(ClientProxy.localNutrition, amounts);
+    }
+
 }
@@ -0,0 +1,15 @@
+package ca.wescook.nutrition.events;
+
+import net.minecraftforge.oredict.OreDictionary;
+
+import ca.wescook.nutrition.nutrients.NutrientList;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+
+public class EventOreRegister {
+
+    // Ores registered after nutrients are loaded (eg. mods registering late) are added to the food index
+    @SubscribeEvent
+    public void oreRegister(OreDictionary.OreRegisterEvent event) {
+        NutrientList.onOreRegistered(event.Name);
+    }
+}
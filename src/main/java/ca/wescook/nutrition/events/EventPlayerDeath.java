@@ -17,6 +17,7 @@ public class EventPlayerDeath {
         // Duplicate nutrition capability data on server
         NutrientManager nutritionOld = PlayerDataHandler.getForPlayer(event.original); // Get old nutrition
         NutrientManager nutritionNew = new NutrientManager(nutritionOld.get()); // Create new nutrition
+        nutritionNew.setFoodSequence(nutritionOld.getFoodSequence()); // Keep client predictions in step
 
         // On death, apply nutrition penalty
         // This is synced automatically in EventPlayerJoinWorld#EntityJoinWorldEvent
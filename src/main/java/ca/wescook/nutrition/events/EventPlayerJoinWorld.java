@@ -18,6 +18,6 @@ public class EventPlayerJoinWorld {
         if (event.world.isRemote) return;
 
         // Update nutrition on first join, and on death
-        Sync.serverRequest((EntityPlayer) event.entity);
+        Sync.fullServerRequest((EntityPlayer) event.entity);
     }
 }
@@ -0,0 +1,18 @@
+package ca.wescook.nutrition.events;
+
+import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.network.PacketRateLimiter;
+import ca.wescook.nutrition.network.Sync;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.PlayerEvent;
+
+public class EventPlayerLogout {
+
+    // Release player data once they leave the server
+    @SubscribeEvent
+    public void playerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        PlayerDataHandler.scheduleEviction(event.player);
+        Sync.forgetPlayer(event.player);
+        PacketRateLimiter.forgetPlayer(event.player);
+    }
+}
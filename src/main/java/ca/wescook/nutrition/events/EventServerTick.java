@@ -0,0 +1,44 @@
+package ca.wescook.nutrition.events;
+
+import net.minecraft.server.MinecraftServer;
+
+import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.effects.EffectsScheduler;
+import ca.wescook.nutrition.network.ServerTaskQueue;
+import ca.wescook.nutrition.network.Sync;
+import ca.wescook.nutrition.utility.ConfigWatcher;
+import ca.wescook.nutrition.utility.DataImporter;
+import cpw.mods.fml.common.FMLCommonHandler;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent;
+
+public class EventServerTick {
+
+    @SubscribeEvent
+    public void serverTickEvent(TickEvent.ServerTickEvent event) {
+        // Only run during end phase (post-vanilla)
+        if (event.phase != TickEvent.Phase.END) return;
+
+        MinecraftServer server = FMLCommonHandler.instance()
+            .getMinecraftServerInstance();
+
+        // Reload config files edited since last tick, and publish reloads which have finished loading
+        ConfigWatcher.tick(server);
+        DataImporter.tick(server);
+
+        // Handle packets received since last tick
+        ServerTaskQueue.drain(server.getConfigurationManager().playerEntityList);
+
+        // Reapply potion effects, spread over the refresh interval
+        EffectsScheduler.tick(server.getConfigurationManager().playerEntityList);
+
+        // Normalize nutrition for hunger gained without eating
+        PlayerDataHandler.normalizeNonFoodHunger(server.getConfigurationManager().playerEntityList);
+
+        // Send nutrition updates requested during this tick, one per player
+        Sync.flush(server.getConfigurationManager().playerEntityList);
+
+        // Release data of players who logged out this tick (after it was saved)
+        PlayerDataHandler.evictLoggedOut(server);
+    }
+}
@@ -42,19 +42,13 @@ public class EventTooltip {
         // Create readable list of nutrients
         StringJoiner stringJoiner = new StringJoiner(", ");
         Map<Nutrient, Float> foundNutrients = NutrientUtils.getFoodNutrients(itemStack);
-        if (foundNutrients.containsValue(0F)) {
-            float defaultValue = NutrientUtils.calculateNutrition(value, foundNutrients);
-            for (Nutrient nutrient : foundNutrients.keySet()) {
-                if (foundNutrients.get(nutrient) == 0F) {
-                    foundNutrients.put(nutrient, defaultValue);
-                }
-            }
-        }
+        float defaultValue = NutrientUtils.calculateNutrition(value, foundNutrients);
         Map<Float, List<Nutrient>> sortedNutrients = new HashMap<>();
-        for (Nutrient nutrient : foundNutrients.keySet()) {// Loop through nutrients from food
+        for (Map.Entry<Nutrient, Float> entry : foundNutrients.entrySet()) {// Loop through nutrients from food
+            Nutrient nutrient = entry.getKey();
             if (nutrient.visible) {
                 // Get nutrition value
-                float nutritionValue = foundNutrients.get(nutrient);
+                float nutritionValue = NutrientUtils.resolveValue(entry.getValue(), defaultValue);
                 if (sortedNutrients.get(nutritionValue) == null) {
                     List<Nutrient> nutrients = new ArrayList<>();
                     nutrients.add(nutrient);
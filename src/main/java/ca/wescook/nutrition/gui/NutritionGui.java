@@ -7,7 +7,6 @@ import net.minecraft.client.resources.I18n;
 import org.lwjgl.opengl.GL11;
 
 import ca.wescook.nutrition.Tags;
-import ca.wescook.nutrition.network.Sync;
 import ca.wescook.nutrition.nutrients.Nutrient;
 import ca.wescook.nutrition.nutrients.NutrientList;
 import ca.wescook.nutrition.proxy.ClientProxy;
@@ -71,10 +70,9 @@ public class NutritionGui extends GuiScreenDynamic {
         int i = 0;
         for (Nutrient nutrient : NutrientList.getVisible()) {
             // Calculate percentage width for nutrition bars
-            float currentNutrient = (ClientProxy.localNutrition != null
-                && ClientProxy.localNutrition.get(nutrient) != null)
-                    ? Math.round(ClientProxy.localNutrition.get(nutrient))
-                    : 0; // Display empty if null
+            float currentNutrient = (ClientProxy.localNutrition != null && ClientProxy.localNutrition.has(nutrient))
+                ? Math.round(ClientProxy.localNutrition.get(nutrient))
+                : 0; // Display empty if null
             int nutritionBarDisplayWidth = (int) (currentNutrient / 100 * NUTRITION_BAR_WIDTH);
 
             // Draw icons
@@ -110,9 +108,6 @@ public class NutritionGui extends GuiScreenDynamic {
     // Called when GUI is opened or resized
     @Override
     public void initGui() {
-        // Sync Nutrition info from server to client
-        Sync.clientRequest();
-
         // Calculate label offset for long nutrition names
         for (Nutrient nutrient : NutrientList.getVisible()) {
             // Get width of localized string
@@ -188,7 +183,7 @@ public class NutritionGui extends GuiScreenDynamic {
                     0,
                     0xffffffff));
             // Ensure local nutrition data exists
-            if (ClientProxy.localNutrition != null && ClientProxy.localNutrition.get(nutrient) != null) {
+            if (ClientProxy.localNutrition != null && ClientProxy.localNutrition.has(nutrient)) {
                 label.addLine(Math.round(ClientProxy.localNutrition.get(nutrient)) + "%%");
             } else {
                 label.addLine(I18n.format("gui." + Tags.MODID + ":updating"));
@@ -0,0 +1,45 @@
+package ca.wescook.nutrition.mixin;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.FoodStats;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import ca.wescook.nutrition.data.PlayerDataHandler;
+
+@SuppressWarnings("all")
+@Mixin(FoodStats.class)
+public abstract class FoodStatsMixin {
+
+    @Shadow
+    private int foodLevel;
+
+    // Food level when last reported (-1 until the first update)
+    @Unique
+    private int nutrition$lastFoodLevel = -1;
+
+    // Catches drops from outside of onUpdate (eg. other mods setting the food level) since the previous update
+    @Inject(method = "onUpdate(Lnet/minecraft/entity/player/EntityPlayer;)V", at = @At(value = "HEAD"))
+    private void nutrition$onUpdateHead(EntityPlayer player, CallbackInfo ci) {
+        nutrition$reportFoodLevel(player);
+    }
+
+    // Catches drops from exhaustion during this update
+    @Inject(method = "onUpdate(Lnet/minecraft/entity/player/EntityPlayer;)V", at = @At(value = "RETURN"))
+    private void nutrition$onUpdateReturn(EntityPlayer player, CallbackInfo ci) {
+        nutrition$reportFoodLevel(player);
+    }
+
+    @Unique
+    private void nutrition$reportFoodLevel(EntityPlayer player) {
+        if (nutrition$lastFoodLevel >= 0 && foodLevel < nutrition$lastFoodLevel) {
+            PlayerDataHandler.onFoodLevelDecreased(player, nutrition$lastFoodLevel - foodLevel);
+        }
+        nutrition$lastFoodLevel = foodLevel;
+    }
+}
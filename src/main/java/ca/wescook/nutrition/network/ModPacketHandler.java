@@ -12,7 +12,10 @@ public class ModPacketHandler {
     // Message IDs
     private static final int MESSAGE_NUTRITION_REQUEST = 0;
     private static final int MESSAGE_NUTRITION_RESPONSE = 1;
-    private static final int MESSAGE_NORMALIZE_SERVER_NUTRIENTS = 2;
+    // 2 was used by a removed client to server packet
+    private static final int MESSAGE_NUTRIENT_TABLE = 3;
+    private static final int MESSAGE_NUTRIENT_SNAPSHOT_REQUEST = 4;
+    private static final int MESSAGE_NUTRIENT_SNAPSHOT = 5;
 
     // Register messages on run
     public static void registerMessages() {
@@ -29,9 +32,21 @@ public class ModPacketHandler {
             Side.CLIENT);
 
         NETWORK_CHANNEL.registerMessage(
-            PacketNormalizeServerNutrients.Handler.class,
-            PacketNormalizeServerNutrients.Message.class,
-            MESSAGE_NORMALIZE_SERVER_NUTRIENTS,
+            PacketNutrientTable.Handler.class,
+            PacketNutrientTable.Message.class,
+            MESSAGE_NUTRIENT_TABLE,
+            Side.CLIENT);
+
+        NETWORK_CHANNEL.registerMessage(
+            PacketNutrientSnapshotRequest.Handler.class,
+            PacketNutrientSnapshotRequest.Message.class,
+            MESSAGE_NUTRIENT_SNAPSHOT_REQUEST,
             Side.SERVER);
+
+        NETWORK_CHANNEL.registerMessage(
+            PacketNutrientSnapshot.Handler.class,
+            PacketNutrientSnapshot.Message.class,
+            MESSAGE_NUTRIENT_SNAPSHOT,
+            Side.CLIENT);
     }
 }
@@ -0,0 +1,50 @@
+package ca.wescook.nutrition.network;
+
+import java.util.List;
+
+import ca.wescook.nutrition.nutrients.Nutrient;
+import ca.wescook.nutrition.nutrients.NutrientList;
+
+// Server's nutrient ordinals as received by the client, mapped onto local nutrients by name
+// Nutrients only known to the client's registry map to null
+// The mapping is rebuilt if local nutrients are registered again (eg. from the server's snapshot)
+public class NutrientTable {
+
+    private final int layoutHash;
+    private final String registryHash;
+    private final List<String> names;
+
+    private List<Nutrient> mappedNutrients;
+    private Nutrient[] localNutrients;
+
+    public NutrientTable(int layoutHash, String registryHash, List<String> names) {
+        this.layoutHash = layoutHash;
+        this.registryHash = registryHash;
+        this.names = names;
+    }
+
+    public int getLayoutHash() {
+        return layoutHash;
+    }
+
+    // Return hash of the server's nutrient snapshot
+    public String getRegistryHash() {
+        return registryHash;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // Return local nutrient for a server ordinal (null if unknown)
+    public synchronized Nutrient getLocal(int serverOrdinal) {
+        if (mappedNutrients != NutrientList.get()) {
+            mappedNutrients = NutrientList.get();
+            localNutrients = new Nutrient[names.size()];
+            for (int i = 0; i < localNutrients.length; i++) {
+                localNutrients[i] = NutrientList.getByName(names.get(i));
+            }
+        }
+        return (serverOrdinal >= 0 && serverOrdinal < localNutrients.length) ? localNutrients[serverOrdinal] : null;
+    }
+}
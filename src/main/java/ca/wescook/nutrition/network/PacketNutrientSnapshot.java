@@ -0,0 +1,96 @@
+package ca.wescook.nutrition.network;
+
+import java.io.IOException;
+import java.util.List;
+
+import net.minecraft.client.Minecraft;
+
+import ca.wescook.nutrition.nutrients.Nutrient;
+import ca.wescook.nutrition.nutrients.NutrientList;
+import ca.wescook.nutrition.nutrients.NutrientSnapshot;
+import ca.wescook.nutrition.proxy.ClientProxy;
+import ca.wescook.nutrition.utility.Log;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+import io.netty.buffer.ByteBuf;
+
+// Server's registered nutrients and foods, so clients don't need to parse JSON of their own
+// Clients cache it on disk by hash, and only ask for it when PacketNutrientTable names a snapshot they don't have
+public class PacketNutrientSnapshot {
+
+    // Snapshot last registered on the client, and the nutrients registered from it
+    private static String appliedHash;
+    private static List<Nutrient> appliedNutrients;
+
+    public static class Message implements IMessage {
+
+        byte[] data;
+
+        public Message() {}
+
+        public Message(NutrientSnapshot snapshot) {
+            data = snapshot.getData();
+        }
+
+        // Then serialized into bytes (on server)
+        @Override
+        public void toBytes(ByteBuf buf) {
+            ByteBufUtils.writeVarInt(buf, data.length, 5);
+            buf.writeBytes(data);
+        }
+
+        // Then deserialized (on the client)
+        @Override
+        public void fromBytes(ByteBuf buf) {
+            data = new byte[ByteBufUtils.readVarInt(buf, 5)];
+            buf.readBytes(data);
+        }
+    }
+
+    // This is the client's handling of the information
+    public static class Handler implements IMessageHandler<Message, IMessage> {
+
+        @Override
+        public IMessage onMessage(final Message message, final MessageContext context) {
+            ClientProxy.runOnClientThread(() -> {
+                String hash = NutrientSnapshot.hash(message.data);
+                int layoutHash = NutrientList.getLayoutHash();
+                if (apply(hash, message.data)) {
+                    RegistryCache.save(hash, message.data);
+
+                    // Values received before now may have been for nutrients unknown until now
+                    // Not needed if only foods changed, as the same nutrients were known then
+                    if (NutrientList.getLayoutHash() != layoutHash) Sync.clientRequest();
+                }
+            });
+            return null;
+        }
+    }
+
+    // Make sure client nutrients match the server's snapshot, from disk cache if possible
+    // Called on the client thread when a nutrient table is received
+    public static void onRegistryHash(String hash) {
+        if (Minecraft.getMinecraft()
+            .isIntegratedServerRunning()) return; // Shares nutrients with the integrated server
+        if (hash.equals(appliedHash) && NutrientList.get() == appliedNutrients) return; // Already applied
+
+        byte[] cached = RegistryCache.load(hash);
+        if (cached != null && apply(hash, cached)) return;
+        ModPacketHandler.NETWORK_CHANNEL.sendToServer(new PacketNutrientSnapshotRequest.Message());
+    }
+
+    // Register nutrients from snapshot data, returning false if it couldn't be read
+    private static boolean apply(String hash, byte[] data) {
+        try {
+            NutrientList.register(NutrientSnapshot.read(data));
+            appliedHash = hash;
+            appliedNutrients = NutrientList.get();
+            return true;
+        } catch (IOException e) {
+            Log.error("Unable to read nutrients sent by server: " + e);
+            return false;
+        }
+    }
+}
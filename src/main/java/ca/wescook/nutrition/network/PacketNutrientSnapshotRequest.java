@@ -0,0 +1,41 @@
+package ca.wescook.nutrition.network;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import ca.wescook.nutrition.nutrients.NutrientList;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+import io.netty.buffer.ByteBuf;
+
+public class PacketNutrientSnapshotRequest {
+
+    // Empty message, sent by clients which don't have the server's nutrients cached
+    public static class Message implements IMessage {
+
+        public Message() {}
+
+        @Override
+        public void toBytes(ByteBuf buf) {}
+
+        @Override
+        public void fromBytes(ByteBuf buf) {}
+    }
+
+    // Handled on server
+    public static class Handler implements IMessageHandler<Message, IMessage> {
+
+        @Override
+        public IMessage onMessage(final Message message, final MessageContext context) {
+            EntityPlayerMP player = context.getServerHandler().playerEntity;
+            if (!PacketRateLimiter.tryAcquire(player, PacketRateLimiter.PacketType.SNAPSHOT_REQUEST)) return null;
+
+            // Sent from the server thread, as writing the snapshot reads the ore dictionary
+            ServerTaskQueue.submit(
+                player,
+                serverPlayer -> ModPacketHandler.NETWORK_CHANNEL
+                    .sendTo(new PacketNutrientSnapshot.Message(NutrientList.getSnapshot()), serverPlayer));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ca.wescook.nutrition.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.wescook.nutrition.nutrients.Nutrient;
+import ca.wescook.nutrition.nutrients.NutrientList;
+import ca.wescook.nutrition.proxy.ClientProxy;
+import cpw.mods.fml.common.network.ByteBufUtils;
+import cpw.mods.fml.common.network.simpleimpl.IMessage;
+import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
+import cpw.mods.fml.common.network.simpleimpl.MessageContext;
+import io.netty.buffer.ByteBuf;
+
+// Tells the client which nutrient each ordinal refers to, so nutrition updates can be sent as bare values
+// Also names the snapshot of the server's nutrients, which the client registers in place of its own
+// Sent before the first update after login, and again whenever the server's nutrients or their foods change
+public class PacketNutrientTable {
+
+    public static class Message implements IMessage {
+
+        int layoutHash;
+        String registryHash; // Hash of NutrientSnapshot, so clients can tell if they need it
+        List<String> names;
+        boolean foodsOnly; // Nutrients are the same as the table before, so values and predictions still apply
+
+        public Message() {}
+
+        public Message(List<Nutrient> nutrients) {
+            this(nutrients, false);
+        }
+
+        // Message data is taken from registered nutrients (on server)
+        public Message(List<Nutrient> nutrients, boolean foodsOnly) {
+            this.foodsOnly = foodsOnly;
+            layoutHash = NutrientList.getLayoutHash(nutrients);
+            registryHash = NutrientList.getSnapshot()
+                .getHash();
+            names = new ArrayList<>();
+            for (Nutrient nutrient : nutrients) {
+                names.add(nutrient.name);
+            }
+        }
+
+        // Then serialized into bytes (on server)
+        @Override
+        public void toBytes(ByteBuf buf) {
+            buf.writeInt(layoutHash);
+            ByteBufUtils.writeUTF8String(buf, registryHash);
+            ByteBufUtils.writeVarInt(buf, names.size(), 5);
+            for (String name : names) {
+                ByteBufUtils.writeUTF8String(buf, name);
+            }
+            buf.writeBoolean(foodsOnly);
+        }
+
+        // Then deserialized (on the client)
+        @Override
+        public void fromBytes(ByteBuf buf) {
+            layoutHash = buf.readInt();
+            registryHash = ByteBufUtils.readUTF8String(buf);
+            int size = ByteBufUtils.readVarInt(buf, 5);
+            names = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                names.add(ByteBufUtils.readUTF8String(buf));
+            }
+            foodsOnly = buf.readBoolean();
+        }
+    }
+
+    // This is the client's handling of the information
+    public static class Handler implements IMessageHandler<Message, IMessage> {
+
+        @Override
+        public IMessage onMessage(final Message message, final MessageContext context) {
+            ClientProxy.runOnClientThread(() -> {
+                ClientProxy.nutrientTable = new NutrientTable(message.layoutHash, message.registryHash, message.names);
+                // New connection or reloaded nutrients, a full update follows
+                if (!message.foodsOnly) ClientProxy.predictions.reset();
+                PacketNutrientSnapshot.onRegistryHash(message.registryHash);
+            });
+            return null;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ca.wescook.nutrition.network;
 
 import net.minecraft.entity.player.EntityPlayerMP;
 
+import ca.wescook.nutrition.nutrients.NutrientList;
 import cpw.mods.fml.common.network.simpleimpl.IMessage;
 import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
 import cpw.mods.fml.common.network.simpleimpl.MessageContext;
@@ -9,16 +10,26 @@ import io.netty.buffer.ByteBuf;
 
 public class PacketNutritionRequest {
 
-    // Empty message just to request information
+    // Requests information, along with the nutrient table the client currently holds
     public static class Message implements IMessage {
 
+        int layoutHash; // 0 if client has no table
+
         public Message() {}
 
+        public Message(int layoutHash) {
+            this.layoutHash = layoutHash;
+        }
+
         @Override
-        public void toBytes(ByteBuf buf) {}
+        public void toBytes(ByteBuf buf) {
+            buf.writeInt(layoutHash);
+        }
 
         @Override
-        public void fromBytes(ByteBuf buf) {}
+        public void fromBytes(ByteBuf buf) {
+            layoutHash = buf.readInt();
+        }
     }
 
     // Handled on server
@@ -27,7 +38,15 @@ public class PacketNutritionRequest {
         @Override
         public IMessage onMessage(final Message message, final MessageContext context) {
             EntityPlayerMP player = context.getServerHandler().playerEntity; // Get Player on server
-            ModPacketHandler.NETWORK_CHANNEL.sendTo(new PacketNutritionResponse.Message(player), player);
+            if (!PacketRateLimiter.tryAcquire(player, PacketRateLimiter.PacketType.NUTRITION_REQUEST)) return null;
+            if (PacketRateLimiter.isDuplicateRequest(player, message.layoutHash)) return null; // Already answered
+
+            // Handled on the server thread
+            ServerTaskQueue.submit(player, serverPlayer -> {
+                // Send everything, including the table if the client's is out of date
+                Sync.resetPlayer(serverPlayer, message.layoutHash != NutrientList.getLayoutHash());
+                Sync.fullServerRequest(serverPlayer);
+            });
             return null;
         }
     }
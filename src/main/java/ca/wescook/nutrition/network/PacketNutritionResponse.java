@@ -1,17 +1,14 @@
 package ca.wescook.nutrition.network;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.BitSet;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.GuiScreen;
-import net.minecraft.entity.player.EntityPlayer;
 
 import ca.wescook.nutrition.data.NutrientManager;
-import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.data.PredictionLog;
 import ca.wescook.nutrition.gui.NutritionGui;
 import ca.wescook.nutrition.nutrients.Nutrient;
-import ca.wescook.nutrition.nutrients.NutrientList;
 import ca.wescook.nutrition.proxy.ClientProxy;
 import cpw.mods.fml.common.network.ByteBufUtils;
 import cpw.mods.fml.common.network.simpleimpl.IMessage;
@@ -19,45 +16,97 @@ import cpw.mods.fml.common.network.simpleimpl.IMessageHandler;
 import cpw.mods.fml.common.network.simpleimpl.MessageContext;
 import io.netty.buffer.ByteBuf;
 
+// Player's nutrition, as values indexed by the ordinals agreed in PacketNutrientTable
+// Values are sent as fixed-point integers, either all of them or only those changed since the last message
 public class PacketNutritionResponse {
 
     public static class Message implements IMessage {
 
-        // server only
-        EntityPlayer serverPlayer;
-        // client only
-        Map<Nutrient, Float> clientNutrients;
+        int layoutHash;
+        int sequence; // Foods eaten by the player, as counted by NutrientManager#getFoodSequence
+        int precision; // Decimal places values are quantized to
+        boolean full;
+        BitSet changed; // Ordinals included in a delta (unused if full)
+        int[] values; // Quantized values, indexed by ordinal (only changed ones are meaningful in a delta)
 
         public Message() {}
 
-        // Message data is passed along from server
-        public Message(EntityPlayer player) {
-            serverPlayer = player;
+        // Message data is prepared by Sync (on server)
+        Message(int layoutHash, int sequence, int precision, boolean full, BitSet changed, int[] values) {
+            this.layoutHash = layoutHash;
+            this.sequence = sequence;
+            this.precision = precision;
+            this.full = full;
+            this.changed = changed;
+            this.values = values;
         }
 
         // Then serialized into bytes (on server)
         @Override
         public void toBytes(ByteBuf buf) {
-            // Loop through nutrients from server player, and add to buffer
-            Map<Nutrient, Float> nutrientData = PlayerDataHandler.getForPlayer(serverPlayer)
-                .get();
-            for (Map.Entry<Nutrient, Float> entry : nutrientData.entrySet()) {
-                ByteBufUtils.writeUTF8String(buf, entry.getKey().name);
-                buf.writeFloat(entry.getValue());
+            buf.writeInt(layoutHash);
+            ByteBufUtils.writeVarInt(buf, sequence, 5);
+            buf.writeByte(precision);
+            buf.writeBoolean(full);
+            ByteBufUtils.writeVarInt(buf, values.length, 5);
+
+            if (!full) {
+                // Bitmask of included ordinals
+                byte[] mask = changed.toByteArray();
+                for (int i = 0; i < (values.length + 7) / 8; i++) {
+                    buf.writeByte((i < mask.length) ? mask[i] : 0);
+                }
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                if (full || changed.get(i)) writeSignedVarInt(buf, values[i]);
             }
         }
 
         // Then deserialized (on the client)
         @Override
         public void fromBytes(ByteBuf buf) {
-            // Loop through buffer stream to build nutrition data
-            clientNutrients = new HashMap<>();
-            while (buf.isReadable()) {
-                String identifier = ByteBufUtils.readUTF8String(buf);
-                Float value = buf.readFloat();
-                clientNutrients.put(NutrientList.getByName(identifier), value);
+            layoutHash = buf.readInt();
+            sequence = ByteBufUtils.readVarInt(buf, 5);
+            precision = buf.readUnsignedByte();
+            full = buf.readBoolean();
+            values = new int[ByteBufUtils.readVarInt(buf, 5)];
+
+            if (!full) {
+                byte[] mask = new byte[(values.length + 7) / 8];
+                buf.readBytes(mask);
+                changed = BitSet.valueOf(mask);
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                if (full || changed.get(i)) values[i] = readSignedVarInt(buf);
             }
         }
+
+        // Zigzag encoded, so small negative values stay small
+        private static void writeSignedVarInt(ByteBuf buf, int value) {
+            ByteBufUtils.writeVarInt(buf, (value << 1) ^ (value >> 31), 5);
+        }
+
+        private static int readSignedVarInt(ByteBuf buf) {
+            int value = ByteBufUtils.readVarInt(buf, 5);
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    // Converts a value to fixed-point with the supplied number of decimal places
+    public static int quantize(float value, int precision) {
+        return Math.round(value * scale(precision));
+    }
+
+    public static float dequantize(int value, int precision) {
+        return value / scale(precision);
+    }
+
+    private static float scale(int precision) {
+        float scale = 1;
+        for (int i = 0; i < precision; i++) scale *= 10;
+        return scale;
     }
 
     // This is the client's handling of the information
@@ -65,18 +114,39 @@ public class PacketNutritionResponse {
 
         @Override
         public IMessage onMessage(final Message message, final MessageContext context) {
-            if (ClientProxy.localNutrition != null) {
-                ClientProxy.localNutrition.set(message.clientNutrients);
-            } else {
-                ClientProxy.localNutrition = new NutrientManager(message.clientNutrients);
+            // On the client thread, in order with the nutrient table which must be applied first
+            ClientProxy.runOnClientThread(() -> handle(message));
+            return null;
+        }
+
+        private static void handle(Message message) {
+            // Ordinals can't be read without the matching table, and deltas need a full update to apply to
+            // Ask the server to send both again
+            NutrientTable table = ClientProxy.nutrientTable;
+            PredictionLog predictions = ClientProxy.predictions;
+            if (table == null || table.getLayoutHash() != message.layoutHash
+                || (!message.full && predictions.getConfirmed() == null)) {
+                Sync.clientRequest();
+                return;
+            }
+
+            // Update values confirmed by the server
+            NutrientManager confirmed = predictions.getOrCreateConfirmed();
+            for (int i = 0; i < message.values.length; i++) {
+                if (!message.full && !message.changed.get(i)) continue;
+                Nutrient nutrient = table.getLocal(i);
+                if (nutrient != null) confirmed.set(nutrient, dequantize(message.values[i], message.precision));
             }
 
+            // Then show them along with anything eaten that the server hasn't seen yet
+            if (ClientProxy.localNutrition == null) ClientProxy.localNutrition = new NutrientManager();
+            predictions.reconcile(ClientProxy.localNutrition, message.sequence);
+
             // If Nutrition GUI is open, update GUI
             GuiScreen currentScreen = Minecraft.getMinecraft().currentScreen;
             if (currentScreen instanceof NutritionGui) {
                 ((NutritionGui) currentScreen).redrawLabels();
             }
-            return null;
         }
     }
 }
@@ -0,0 +1,102 @@
+package ca.wescook.nutrition.network;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.entity.player.EntityPlayer;
+
+import ca.wescook.nutrition.utility.Config;
+
+// Limits how often each player may send packets to the server, so a modified client can't flood it
+// Each packet type has a token bucket per player, refilled at the configured rate and holding up to a second's worth
+// Called from packet handlers on the network thread
+public class PacketRateLimiter {
+
+    // Client packets which are limited
+    public enum PacketType {
+        NUTRITION_REQUEST,
+        SNAPSHOT_REQUEST
+    }
+
+    // Identical nutrition requests within this window are answered once
+    private static final long REQUEST_COLLAPSE_NANOS = 1_000_000_000L;
+
+    private static final Map<UUID, PlayerLimits> LIMITS = new ConcurrentHashMap<>();
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    // Returns true if the packet may be handled, otherwise counts it as dropped
+    public static boolean tryAcquire(EntityPlayer player, PacketType type) {
+        PlayerLimits limits = LIMITS.computeIfAbsent(player.getUniqueID(), uuid -> new PlayerLimits());
+        TokenBucket bucket = limits.buckets[type.ordinal()];
+        if (bucket.tryAcquire(getRate(type), System.nanoTime())) return true;
+        DROPPED.incrementAndGet();
+        return false;
+    }
+
+    // Returns true if a request for the same nutrient table was accepted within the collapse window
+    // Otherwise records this one as accepted
+    public static boolean isDuplicateRequest(EntityPlayer player, int layoutHash) {
+        PlayerLimits limits = LIMITS.computeIfAbsent(player.getUniqueID(), uuid -> new PlayerLimits());
+        long now = System.nanoTime();
+        synchronized (limits) {
+            if (limits.lastRequestHash == layoutHash && now - limits.lastRequestTime < REQUEST_COLLAPSE_NANOS) {
+                return true;
+            }
+            limits.lastRequestHash = layoutHash;
+            limits.lastRequestTime = now;
+            return false;
+        }
+    }
+
+    // Return number of packets dropped for exceeding their rate
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    // Called on logout
+    public static void forgetPlayer(EntityPlayer player) {
+        LIMITS.remove(player.getUniqueID());
+    }
+
+    // Called when the server stops
+    public static void clear() {
+        LIMITS.clear();
+    }
+
+    private static int getRate(PacketType type) {
+        return switch (type) {
+            case NUTRITION_REQUEST -> Config.nutritionRequestRate;
+            case SNAPSHOT_REQUEST -> 1; // Only needed once per connection
+        };
+    }
+
+    private static class PlayerLimits {
+
+        private final TokenBucket[] buckets = new TokenBucket[PacketType.values().length];
+        private int lastRequestHash;
+        private long lastRequestTime;
+
+        private PlayerLimits() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new TokenBucket();
+        }
+    }
+
+    private static class TokenBucket {
+
+        private double tokens = -1; // Filled on first use
+        private long lastRefill;
+
+        // Rate is in packets per second, which is also the bucket's capacity
+        private synchronized boolean tryAcquire(int rate, long now) {
+            if (tokens < 0) tokens = rate;
+            else tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+    }
+}
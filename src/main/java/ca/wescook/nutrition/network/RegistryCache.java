@@ -0,0 +1,72 @@
+package ca.wescook.nutrition.network;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+
+import ca.wescook.nutrition.Tags;
+import ca.wescook.nutrition.nutrients.NutrientSnapshot;
+import ca.wescook.nutrition.utility.Config;
+import ca.wescook.nutrition.utility.Log;
+
+// Client-side disk cache of nutrient snapshots received from servers, named by their hash
+// Lets clients skip downloading a server's nutrients again when they haven't changed
+public class RegistryCache {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{40}"); // Never trust a server's file name
+    private static final Pattern FILE_PATTERN = Pattern.compile("[0-9a-f]{40}\\.bin");
+
+    // Snapshots kept, the least recently used are deleted beyond this
+    private static final int MAX_ENTRIES = 16;
+
+    // Returns cached snapshot data for hash, or null if not cached (or corrupt)
+    public static byte[] load(String hash) {
+        File file = getFile(hash);
+        if (file == null || !file.isFile()) return null;
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (!NutrientSnapshot.hash(data)
+                .equals(hash)) return null;
+            file.setLastModified(System.currentTimeMillis()); // Recently used, so pruned last
+            return data;
+        } catch (IOException e) {
+            Log.warn("Unable to read cached nutrients " + file.getName() + ": " + e);
+            return null;
+        }
+    }
+
+    public static void save(String hash, byte[] data) {
+        File file = getFile(hash);
+        if (file == null) return;
+        try {
+            file.getParentFile()
+                .mkdirs();
+            Files.write(file.toPath(), data);
+        } catch (IOException e) {
+            Log.warn("Unable to cache nutrients " + file.getName() + ": " + e);
+        }
+        prune(file.getParentFile());
+    }
+
+    // Deletes the least recently used snapshots beyond MAX_ENTRIES
+    private static void prune(File directory) {
+        File[] files = directory.listFiles(
+            (dir, name) -> FILE_PATTERN.matcher(name)
+                .matches());
+        if (files == null || files.length <= MAX_ENTRIES) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_ENTRIES; i++) {
+            if (!files[i].delete()) Log.warn("Unable to delete cached nutrients " + files[i].getName());
+        }
+    }
+
+    private static File getFile(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash)
+            .matches()) return null;
+        return new File(Config.configDirectory, Tags.MODID + "/cache/" + hash + ".bin");
+    }
+}
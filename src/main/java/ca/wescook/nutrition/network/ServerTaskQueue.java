@@ -0,0 +1,75 @@
+package ca.wescook.nutrition.network;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+// Hands work from packet handlers (which run on network threads) to the server thread, where player data is safe
+// to touch
+// Tasks run in the order they were received, in batches at the end of each server tick
+public class ServerTaskQueue {
+
+    private static final int CAPACITY = 4096; // Tasks beyond this are dropped until the queue drains
+    private static final int BATCH_SIZE = 1024; // Most tasks run per tick, the rest wait for the next one
+
+    private static final Queue<Task> TASKS = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger SIZE = new AtomicInteger();
+    private static final AtomicLong REJECTED = new AtomicLong();
+
+    // Queue work for a player, returning false if the queue is full
+    // Safe to call from any thread
+    public static boolean submit(EntityPlayerMP player, Consumer<EntityPlayerMP> work) {
+        if (SIZE.incrementAndGet() > CAPACITY) {
+            SIZE.decrementAndGet();
+            REJECTED.incrementAndGet();
+            return false;
+        }
+        TASKS.add(new Task(player, work));
+        return true;
+    }
+
+    // Runs queued tasks for players still online
+    // Called on the server thread at the end of each tick
+    public static void drain(List<EntityPlayerMP> players) {
+        if (TASKS.isEmpty()) return;
+
+        Set<EntityPlayerMP> online = Collections.newSetFromMap(new IdentityHashMap<>());
+        online.addAll(players);
+
+        Task task;
+        for (int i = 0; i < BATCH_SIZE && (task = TASKS.poll()) != null; i++) {
+            SIZE.decrementAndGet();
+            if (online.contains(task.player)) task.work.accept(task.player); // Skip players who left or respawned
+        }
+    }
+
+    // Return number of tasks dropped because the queue was full
+    public static long getRejectedCount() {
+        return REJECTED.get();
+    }
+
+    // Called when the server stops
+    public static void clear() {
+        TASKS.clear();
+        SIZE.set(0);
+    }
+
+    private static class Task {
+
+        private final EntityPlayerMP player;
+        private final Consumer<EntityPlayerMP> work;
+
+        private Task(EntityPlayerMP player, Consumer<EntityPlayerMP> work) {
+            this.player = player;
+            this.work = work;
+        }
+    }
+}
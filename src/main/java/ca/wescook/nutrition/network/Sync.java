@@ -1,28 +1,148 @@
 package ca.wescook.nutrition.network;
 
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 
+import ca.wescook.nutrition.data.NutrientManager;
+import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.nutrients.NutrientList;
+import ca.wescook.nutrition.proxy.ClientProxy;
+import ca.wescook.nutrition.utility.Config;
+
 public class Sync {
 
-    // Server sends a nutrition update to client
+    // What each player's client was last sent
+    private static final Map<UUID, SyncState> SYNC_STATES = new ConcurrentHashMap<>();
+
+    // Players due an update at the end of this tick, and whether it must be a full one
+    private static final Map<UUID, Boolean> PENDING = new ConcurrentHashMap<>();
+
+    // Server sends a nutrition update to client, containing only values changed since the last update
+    // Requests are collected and sent once per player at the end of the tick
     // Only call from server
     public static void serverRequest(EntityPlayer player) {
-        if (!player.worldObj.isRemote) { // Server-only
+        serverRequest(player, false);
+    }
+
+    // Server sends all nutrition values to client
+    // Used on join, and whenever the client may be out of step
+    // Only call from server
+    public static void fullServerRequest(EntityPlayer player) {
+        serverRequest(player, true);
+    }
+
+    private static void serverRequest(EntityPlayer player, boolean full) {
+        if (player.worldObj.isRemote) return; // Server-only
+        PENDING.merge(player.getUniqueID(), full, Boolean::logicalOr);
+    }
+
+    // Sends requested updates, at most one per player
+    // Called at the end of each server tick
+    public static void flush(List<EntityPlayerMP> players) {
+        if (PENDING.isEmpty()) return;
+        for (int i = 0; i < players.size(); i++) {
+            EntityPlayerMP player = players.get(i);
+            Boolean full = PENDING.remove(player.getUniqueID());
+            if (full != null) send(player, full);
+        }
+    }
+
+    private static void send(EntityPlayerMP player, boolean full) {
+        NutrientManager manager = PlayerDataHandler.getForPlayer(player);
+        manager.update(); // Lay values out for the registered nutrients
+
+        SyncState state = SYNC_STATES.computeIfAbsent(player.getUniqueID(), uuid -> new SyncState());
+        synchronized (state) {
+            // Agree on nutrient ordinals first, if the client doesn't have the current table
+            int layoutHash = NutrientList.getLayoutHash();
+            if (state.layoutHash != layoutHash) {
+                ModPacketHandler.NETWORK_CHANNEL.sendTo(new PacketNutrientTable.Message(NutrientList.get()), player);
+                state.layoutHash = layoutHash;
+                state.sentValues = null;
+            }
+
+            // Quantize values, and compare against what was last sent
+            int precision = Config.syncPrecision;
+            float[] values = manager.getValues();
+            int[] quantized = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                quantized[i] = PacketNutritionResponse.quantize(values[i], precision);
+            }
+
+            int sequence = manager.getFoodSequence();
+            full |= state.sentValues == null || state.precision != precision;
+            BitSet changed = new BitSet(values.length);
+            if (!full) {
+                for (int i = 0; i < quantized.length; i++) {
+                    if (quantized[i] != state.sentValues[i]) changed.set(i);
+                }
+                // Client is already up to date (still confirming foods eaten, even if they changed nothing)
+                if (changed.isEmpty() && sequence == state.sentSequence) return;
+            }
+
+            ModPacketHandler.NETWORK_CHANNEL.sendTo(
+                new PacketNutritionResponse.Message(layoutHash, sequence, precision, full, changed, quantized),
+                player);
+            state.precision = precision;
+            state.sentValues = quantized;
+            state.sentSequence = sequence;
+        }
+    }
+
+    // Next update is sent in full, along with the nutrient table if requested
+    // Called when the client asks for its data again
+    public static void resetPlayer(EntityPlayer player, boolean resendTable) {
+        SyncState state = SYNC_STATES.get(player.getUniqueID());
+        if (state == null) return;
+        synchronized (state) {
+            if (resendTable) state.layoutHash = 0;
+            state.sentValues = null;
+        }
+    }
+
+    // Sends the nutrient table again without a full update, as nutrients are the same and in the same order
+    // Used when only foods were reloaded, so the client picks up the new snapshot
+    public static void resendTable(EntityPlayerMP player) {
+        SyncState state = SYNC_STATES.get(player.getUniqueID());
+        if (state == null) return; // Table is sent with the first update
+        synchronized (state) {
+            if (state.layoutHash != NutrientList.getLayoutHash()) return; // Sent with the next update anyway
             ModPacketHandler.NETWORK_CHANNEL
-                .sendTo(new PacketNutritionResponse.Message(player), (EntityPlayerMP) player);
+                .sendTo(new PacketNutrientTable.Message(NutrientList.get(), true), player);
         }
     }
 
-    // Client requests a nutrition update from server
+    // Called on logout
+    public static void forgetPlayer(EntityPlayer player) {
+        SYNC_STATES.remove(player.getUniqueID());
+        PENDING.remove(player.getUniqueID());
+    }
+
+    // Called when the server stops
+    public static void clear() {
+        SYNC_STATES.clear();
+        PENDING.clear();
+    }
+
+    // Client requests a full nutrition update from server
     // Only call from client
     public static void clientRequest() {
-        ModPacketHandler.NETWORK_CHANNEL.sendToServer(new PacketNutritionRequest.Message());
+        NutrientTable table = ClientProxy.nutrientTable;
+        ModPacketHandler.NETWORK_CHANNEL
+            .sendToServer(new PacketNutritionRequest.Message((table != null) ? table.getLayoutHash() : 0));
     }
 
-    // Client normalizes server stats towards 50
-    // Only call from client
-    public static void normalizeOnServer(float nutrientDelta) {
-        ModPacketHandler.NETWORK_CHANNEL.sendToServer(new PacketNormalizeServerNutrients.Message(nutrientDelta));
+    private static class SyncState {
+
+        private int layoutHash; // Nutrient table last sent (0 if none)
+        private int precision;
+        private int sentSequence;
+        private int[] sentValues; // Quantized values last sent (null if client has none to apply deltas to)
     }
 }
@@ -0,0 +1,162 @@
+package ca.wescook.nutrition.nutrients;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import ca.wescook.nutrition.effects.Effect;
+import ca.wescook.nutrition.effects.EffectsPlan;
+
+// Everything loaded from config: nutrients, the index of their foods, and effects compiled against them
+// Built in full before being published by NutrientList, and never changed after, so nutrients and effects are always
+// seen from the same load
+public class Definitions {
+
+    private static final AtomicLong NEXT_VERSION = new AtomicLong(); // Before EMPTY, which takes a version
+
+    public static final Definitions EMPTY = new Definitions(
+        ImmutableList.of(),
+        ImmutableMap.of(),
+        FoodIndex.EMPTY,
+        ImmutableList.of(),
+        EffectsPlan.EMPTY);
+
+    // Increases with every definitions built, so the newest of two is known
+    private final long version;
+
+    private final ImmutableList<Nutrient> nutrients;
+    private final ImmutableMap<String, Nutrient> nutrientsByName;
+    private final int layoutHash;
+    private final FoodIndex foodIndex;
+    private final ImmutableList<Effect> effects;
+    private final EffectsPlan plan;
+
+    // Binary form of the nutrients, written on the server thread when first needed (server only)
+    private volatile NutrientSnapshot snapshot;
+
+    // Last remap table built, shared by every player moving over from the same nutrients
+    private volatile Remap remap;
+
+    private Definitions(ImmutableList<Nutrient> nutrients, ImmutableMap<String, Nutrient> nutrientsByName,
+        FoodIndex foodIndex, ImmutableList<Effect> effects, EffectsPlan plan) {
+        this(nutrients, nutrientsByName, foodIndex, effects, plan, NEXT_VERSION.getAndIncrement());
+    }
+
+    private Definitions(ImmutableList<Nutrient> nutrients, ImmutableMap<String, Nutrient> nutrientsByName,
+        FoodIndex foodIndex, ImmutableList<Effect> effects, EffectsPlan plan, long version) {
+        this.version = version;
+        this.nutrients = nutrients;
+        this.nutrientsByName = nutrientsByName;
+        this.layoutHash = NutrientList.getLayoutHash(nutrients);
+        this.foodIndex = foodIndex;
+        this.effects = effects;
+        this.plan = plan;
+    }
+
+    // Assigns ordinals to supplied (newly parsed) nutrients and indexes their foods, without any effects
+    public static Definitions of(List<Nutrient> nutrientsIn) {
+        ImmutableList<Nutrient> nutrients = ImmutableList.copyOf(nutrientsIn);
+        Map<String, Nutrient> nutrientsByName = new HashMap<>();
+        for (int i = 0; i < nutrients.size(); i++) {
+            Nutrient nutrient = nutrients.get(i);
+            nutrient.ordinal = i;
+            nutrientsByName.putIfAbsent(nutrient.name, nutrient); // First nutrient wins if names are duplicated
+        }
+
+        return new Definitions(
+            nutrients,
+            ImmutableMap.copyOf(nutrientsByName),
+            FoodIndex.build(nutrients),
+            ImmutableList.of(),
+            EffectsPlan.EMPTY);
+    }
+
+    // Returns these nutrients with supplied effects, which must refer to these nutrients
+    public Definitions withEffects(List<Effect> effectsIn) {
+        ImmutableList<Effect> effects = ImmutableList.copyOf(effectsIn);
+        return new Definitions(nutrients, nutrientsByName, foodIndex, effects, EffectsPlan.compile(effects, nutrients));
+    }
+
+    // Returns these definitions with a replaced food index (keeping the same version, as nothing was reloaded)
+    // The snapshot is written again when next needed, as it includes foods of the newly registered ore name
+    public Definitions withFoodIndex(FoodIndex foodIndex) {
+        return new Definitions(nutrients, nutrientsByName, foodIndex, effects, plan, version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Nutrient> getNutrients() {
+        return nutrients;
+    }
+
+    // Return nutrient by name (null if not found)
+    public Nutrient getNutrient(String name) {
+        return nutrientsByName.get(name);
+    }
+
+    // Return hash identifying the order of nutrients
+    public int getLayoutHash() {
+        return layoutHash;
+    }
+
+    // Whether these nutrients have the same names in the same order as supplied definitions, so values carry over
+    public boolean hasSameLayout(Definitions other) {
+        if (layoutHash != other.layoutHash || nutrients.size() != other.nutrients.size()) return false;
+        for (int i = 0; i < nutrients.size(); i++) {
+            if (!nutrients.get(i).name.equals(other.nutrients.get(i).name)) return false;
+        }
+        return true;
+    }
+
+    public FoodIndex getFoodIndex() {
+        return foodIndex;
+    }
+
+    public List<Effect> getEffects() {
+        return effects;
+    }
+
+    // Return effects compiled against these nutrients
+    public EffectsPlan getPlan() {
+        return plan;
+    }
+
+    public NutrientSnapshot getSnapshot() {
+        NutrientSnapshot snapshot = this.snapshot;
+        if (snapshot == null) this.snapshot = snapshot = NutrientSnapshot.of(nutrients);
+        return snapshot;
+    }
+
+    // Return table mapping ordinals of an older nutrient list to these ordinals (-1 if the nutrient was removed)
+    public int[] getRemapTable(List<Nutrient> oldNutrients) {
+        Remap remap = this.remap;
+        if (remap != null && remap.oldNutrients == oldNutrients) return remap.table;
+
+        int[] remapTable = new int[oldNutrients.size()];
+        Arrays.fill(remapTable, -1);
+        for (int i = 0; i < remapTable.length; i++) {
+            Nutrient nutrient = getNutrient(oldNutrients.get(i).name);
+            if (nutrient != null) remapTable[i] = nutrient.ordinal;
+        }
+        this.remap = new Remap(oldNutrients, remapTable);
+        return remapTable;
+    }
+
+    private static class Remap {
+
+        private final List<Nutrient> oldNutrients;
+        private final int[] table;
+
+        private Remap(List<Nutrient> oldNutrients, int[] table) {
+            this.oldNutrients = oldNutrients;
+            this.table = table;
+        }
+    }
+}
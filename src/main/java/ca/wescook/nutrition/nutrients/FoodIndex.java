@@ -0,0 +1,211 @@
+package ca.wescook.nutrition.nutrients;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import com.google.common.collect.ImmutableMap;
+
+// Lookup from (Item, metadata) to the nutrients that food belongs to
+// Built once per reload so that looking up a food is a single hash probe, regardless of nutrient count
+// Ore dictionary entries are matched by ore ID, so their cost depends only on how many ore names the food has
+// Never changed once built, so it can be read from any thread (see withOreRegistered)
+public class FoodIndex {
+
+    private static final int MAX_CACHED_FOODS = 8192; // Bounds the cache of foods matched by ore name
+
+    public static final FoodIndex EMPTY = new FoodIndex(
+        Collections.emptyMap(),
+        new Nutrient[0],
+        new BitSet[0],
+        new BitSet(),
+        Collections.emptyMap());
+
+    private final Map<Item, Entry> entries;
+
+    // Ore IDs listed by each nutrient, and the union of all of them for quickly rejecting foods
+    private final Nutrient[] oreNutrients;
+    private final BitSet[] oreIds;
+    private final BitSet allOreIds;
+
+    // Ore names which didn't exist yet when built, mapped to the indices of nutrients listing them
+    private final Map<String, List<Integer>> pendingOreNames;
+
+    // Nutrients of foods already looked up, by item then metadata, so ore names are only matched once per food
+    // Only ever added to, and starts empty in every index built by withOreRegistered
+    private final Map<Item, Map<Integer, Map<Nutrient, Float>>> cachedFoods = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedFoodCount = new AtomicInteger();
+
+    private FoodIndex(Map<Item, Entry> entries, Nutrient[] oreNutrients, BitSet[] oreIds, BitSet allOreIds,
+        Map<String, List<Integer>> pendingOreNames) {
+        this.entries = entries;
+        this.oreNutrients = oreNutrients;
+        this.oreIds = oreIds;
+        this.allOreIds = allOreIds;
+        this.pendingOreNames = pendingOreNames;
+    }
+
+    // Returns nutrients for the supplied food, mapped to their custom value (0 if the default value should be used)
+    public Map<Nutrient, Float> get(ItemStack itemStack) {
+        if (itemStack == null || itemStack.getItem() == null) return Collections.emptyMap();
+        Item item = itemStack.getItem();
+        int meta = itemStack.getItemDamage();
+
+        // Listed items
+        Map<Nutrient, Float> listed = Collections.emptyMap();
+        Entry entry = entries.get(item);
+        if (entry != null) {
+            Map<Nutrient, Float> nutrients = entry.byMeta.get(meta);
+            listed = (nutrients != null) ? nutrients : entry.wildcard;
+        }
+        if (allOreIds.isEmpty()) return listed;
+
+        // Ore dictionary, matched once per item and metadata
+        Map<Integer, Map<Nutrient, Float>> cachedByMeta = cachedFoods.get(item);
+        Map<Nutrient, Float> cached = (cachedByMeta != null) ? cachedByMeta.get(meta) : null;
+        if (cached != null) return cached;
+
+        Map<Nutrient, Float> nutrients = matchOres(itemStack, listed);
+        if (cachedFoodCount.get() < MAX_CACHED_FOODS) { // Damageable items could otherwise fill it with every damage
+            if (cachedFoods.computeIfAbsent(item, key -> new ConcurrentHashMap<>())
+                .putIfAbsent(meta, nutrients) == null) cachedFoodCount.incrementAndGet();
+        }
+        return nutrients;
+    }
+
+    // Adds nutrients listing any of the food's ore names to its listed nutrients
+    private Map<Nutrient, Float> matchOres(ItemStack itemStack, Map<Nutrient, Float> listed) {
+        // Only if the food has an ore name that any nutrient lists
+        int[] itemOreIds = OreDictionary.getOreIDs(itemStack);
+        if (!intersects(allOreIds, itemOreIds)) return listed;
+
+        Map<Nutrient, Float> found = null;
+        for (int i = 0; i < oreNutrients.length; i++) {
+            if (listed.containsKey(oreNutrients[i]) || !intersects(oreIds[i], itemOreIds)) continue;
+            if (found == null) found = new LinkedHashMap<>(listed);
+            found.put(oreNutrients[i], 0F);
+        }
+        return (found != null) ? Collections.unmodifiableMap(found) : listed;
+    }
+
+    // Returns an index which also matches an ore name registered after building, or this index if it isn't listed
+    // A copy is made rather than changing this index, as it may be read from other threads
+    // Items added to a listed ore name also give a copy, as foods already looked up may now match it
+    public FoodIndex withOreRegistered(String oreName) {
+        int oreId = OreDictionary.getOreID(oreName);
+        List<Integer> nutrientIndices = pendingOreNames.get(oreName);
+        if (nutrientIndices == null) {
+            return allOreIds.get(oreId) ? new FoodIndex(entries, oreNutrients, oreIds, allOreIds, pendingOreNames)
+                : this;
+        }
+
+        BitSet[] newOreIds = oreIds.clone();
+        for (int i : nutrientIndices) {
+            newOreIds[i] = (BitSet) oreIds[i].clone();
+            newOreIds[i].set(oreId);
+        }
+        BitSet newAllOreIds = (BitSet) allOreIds.clone();
+        newAllOreIds.set(oreId);
+
+        Map<String, List<Integer>> newPendingOreNames = new HashMap<>(pendingOreNames);
+        newPendingOreNames.remove(oreName);
+        return new FoodIndex(entries, oreNutrients, newOreIds, newAllOreIds, newPendingOreNames);
+    }
+
+    private static boolean intersects(BitSet bitSet, int[] ids) {
+        for (int id : ids) {
+            if (bitSet.get(id)) return true;
+        }
+        return false;
+    }
+
+    // Resolves listed items and ore dictionary names of every nutrient into an index
+    public static FoodIndex build(List<Nutrient> nutrients) {
+        // Collect every listed item per metadata (including wildcard metadata)
+        Map<Item, Map<Integer, Map<Nutrient, Float>>> listings = new IdentityHashMap<>();
+        List<Nutrient> oreNutrients = new ArrayList<>();
+        for (Nutrient nutrient : nutrients) {
+            for (Map.Entry<ItemStack, Float> food : nutrient.foodItems.entrySet()) {
+                ItemStack itemStack = food.getKey();
+                if (itemStack.getItem() == null) continue;
+                listings.computeIfAbsent(itemStack.getItem(), item -> new HashMap<>())
+                    .computeIfAbsent(itemStack.getItemDamage(), meta -> new LinkedHashMap<>())
+                    .putIfAbsent(nutrient, food.getValue());
+            }
+            if (!nutrient.foodOreDict.isEmpty()) oreNutrients.add(nutrient);
+        }
+
+        // Resolve the nutrient set of each item and metadata
+        Map<Item, Entry> entries = new IdentityHashMap<>();
+        for (Map.Entry<Item, Map<Integer, Map<Nutrient, Float>>> itemListings : listings.entrySet()) {
+            Map<Integer, Map<Nutrient, Float>> byMeta = itemListings.getValue();
+            Map<Nutrient, Float> wildcard = byMeta.remove(OreDictionary.WILDCARD_VALUE);
+
+            Map<Integer, Map<Nutrient, Float>> resolved = new HashMap<>();
+            for (Map.Entry<Integer, Map<Nutrient, Float>> metaListing : byMeta.entrySet()) {
+                resolved.put(metaListing.getKey(), resolve(nutrients, metaListing.getValue(), wildcard));
+            }
+            entries.put(itemListings.getKey(), new Entry(resolve(nutrients, null, wildcard), resolved));
+        }
+
+        // Resolve ore names to IDs, without creating ore names which nothing has registered yet
+        BitSet[] oreIds = new BitSet[oreNutrients.size()];
+        BitSet allOreIds = new BitSet();
+        Map<String, List<Integer>> pendingOreNames = new HashMap<>();
+        Set<String> existingOreNames = new HashSet<>(Arrays.asList(OreDictionary.getOreNames()));
+        for (int i = 0; i < oreIds.length; i++) {
+            oreIds[i] = new BitSet();
+            for (String oreName : oreNutrients.get(i).foodOreDict) {
+                if (existingOreNames.contains(oreName)) {
+                    int oreId = OreDictionary.getOreID(oreName);
+                    oreIds[i].set(oreId);
+                    allOreIds.set(oreId);
+                } else {
+                    pendingOreNames.computeIfAbsent(oreName, name -> new ArrayList<>())
+                        .add(i);
+                }
+            }
+        }
+
+        return new FoodIndex(entries, oreNutrients.toArray(new Nutrient[0]), oreIds, allOreIds, pendingOreNames);
+    }
+
+    // Exact metadata takes priority over wildcard metadata
+    private static Map<Nutrient, Float> resolve(List<Nutrient> nutrients, Map<Nutrient, Float> exact,
+        Map<Nutrient, Float> wildcard) {
+        ImmutableMap.Builder<Nutrient, Float> builder = ImmutableMap.builder();
+        for (Nutrient nutrient : nutrients) {
+            Float value = null;
+            if (exact != null) value = exact.get(nutrient);
+            if (value == null && wildcard != null) value = wildcard.get(nutrient);
+            if (value != null) builder.put(nutrient, value);
+        }
+        return builder.build();
+    }
+
+    // Resolved nutrients for a single item
+    private static class Entry {
+
+        private final Map<Nutrient, Float> wildcard;
+        private final Map<Integer, Map<Nutrient, Float>> byMeta;
+
+        private Entry(Map<Nutrient, Float> wildcard, Map<Integer, Map<Nutrient, Float>> byMeta) {
+            this.wildcard = wildcard;
+            this.byMeta = byMeta;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import net.minecraft.item.ItemStack;
 // Nutrient object represents a type of food group
 public class Nutrient {
 
+    public int ordinal; // Dense index into NutrientList, assigned on registration
     public String name;
     public ItemStack icon;
     public int color;
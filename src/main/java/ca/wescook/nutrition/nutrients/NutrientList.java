@@ -3,28 +3,71 @@ package ca.wescook.nutrition.nutrients;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.google.common.collect.ImmutableList;
-
 // Maintains information about nutrients (name, color, icon)
 // Stored client and server-side
 public class NutrientList {
 
-    private static ImmutableList<Nutrient> NUTRIENTS;
+    // Everything currently loaded, replaced as a whole when reloaded
+    private static volatile Definitions DEFINITIONS = Definitions.EMPTY;
+
+    // Return everything currently loaded
+    // Read once and keep hold of it where several values must be from the same load
+    public static Definitions getDefinitions() {
+        return DEFINITIONS;
+    }
+
+    // Replace everything loaded in a single step
+    public static synchronized void publish(Definitions definitions) {
+        DEFINITIONS = definitions;
+    }
+
+    // Match foods of an ore name registered after nutrients were loaded (eg. mods registering late)
+    // The food index is replaced rather than changed, as other threads may be reading it
+    public static synchronized void onOreRegistered(String oreName) {
+        Definitions definitions = DEFINITIONS;
+        FoodIndex foodIndex = definitions.getFoodIndex()
+            .withOreRegistered(oreName);
+        if (foodIndex != definitions.getFoodIndex()) DEFINITIONS = definitions.withFoodIndex(foodIndex);
+    }
 
-    // Register list of JSON objects
+    // Register nutrients without any effects (eg. on clients, which don't evaluate effects)
     public static void register(List<Nutrient> nutrientsIn) {
-        NUTRIENTS = ImmutableList.copyOf(nutrientsIn);
+        publish(Definitions.of(nutrientsIn));
     }
 
     // Return all nutrients
     public static List<Nutrient> get() {
-        return NUTRIENTS;
+        return DEFINITIONS.getNutrients();
+    }
+
+    // Return hash identifying the order of registered nutrients
+    public static int getLayoutHash() {
+        return DEFINITIONS.getLayoutHash();
+    }
+
+    // Return hash identifying the order of supplied nutrient names (never 0, which is left to mean "no layout")
+    public static int getLayoutHash(List<Nutrient> nutrients) {
+        int hash = 1;
+        for (Nutrient nutrient : nutrients) {
+            hash = 31 * hash + nutrient.name.hashCode();
+        }
+        return (hash != 0) ? hash : 1;
+    }
+
+    // Return binary form of the registered nutrients, for sending to clients
+    public static NutrientSnapshot getSnapshot() {
+        return DEFINITIONS.getSnapshot();
+    }
+
+    // Return index of foods to their nutrients
+    public static FoodIndex getFoodIndex() {
+        return DEFINITIONS.getFoodIndex();
     }
 
     // Return all visible nutrients
     public static List<Nutrient> getVisible() {
         List<Nutrient> visibleNutrients = new ArrayList<>();
-        for (Nutrient nutrient : NUTRIENTS) {
+        for (Nutrient nutrient : get()) {
             if (nutrient.visible) {
                 visibleNutrients.add(nutrient);
             }
@@ -34,11 +77,11 @@ public class NutrientList {
 
     // Return nutrient by name (null if not found)
     public static Nutrient getByName(String name) {
-        for (Nutrient nutrient : NUTRIENTS) {
-            if (nutrient.name.equals(name)) {
-                return nutrient;
-            }
-        }
-        return null;
+        return DEFINITIONS.getNutrient(name);
+    }
+
+    // Return table mapping ordinals of an older nutrient list to current ordinals (-1 if the nutrient was removed)
+    public static int[] getRemapTable(List<Nutrient> oldNutrients) {
+        return DEFINITIONS.getRemapTable(oldNutrients);
     }
 }
@@ -0,0 +1,200 @@
+package ca.wescook.nutrition.nutrients;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import com.google.common.hash.Hashing;
+
+// Compressed binary form of registered nutrients, including their resolved foods
+// Sent to clients so they don't need to parse the server's JSON, and identified by a hash of its contents
+// Ore dictionary names are written as the items the server's ore dictionary has for them, so clients match the same
+// foods as the server even if their ore dictionary differs (eg. ores registered on one side only)
+// Items are written by registry name, so a snapshot stays valid if numeric IDs change
+public class NutrientSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // Foods are written by registry name, then metadata
+    private static final Comparator<Map.Entry<ItemStack, Float>> FOOD_ORDER = Comparator
+        .comparing((Map.Entry<ItemStack, Float> food) -> getItemName(food.getKey()))
+        .thenComparingInt(food -> food.getKey().getItemDamage());
+
+    private final List<Nutrient> nutrients; // Nutrients this was written from (null if read)
+    private final byte[] data;
+    private final String hash;
+
+    private NutrientSnapshot(List<Nutrient> nutrients, byte[] data) {
+        this.nutrients = nutrients;
+        this.data = data;
+        this.hash = hash(data);
+    }
+
+    // Return nutrients this was written from
+    public List<Nutrient> getNutrients() {
+        return nutrients;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    // Must be called from the server thread, as ore names are resolved against the ore dictionary
+    public static NutrientSnapshot of(List<Nutrient> nutrients) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            write(output, nutrients, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not expected when writing to memory
+        }
+        return new NutrientSnapshot(nutrients, bytes.toByteArray());
+    }
+
+    // Returns nutrients read from snapshot data, skipping items which don't exist locally
+    public static List<Nutrient> read(byte[] data) throws IOException {
+        try (DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            return read(input);
+        }
+    }
+
+    public static String hash(byte[] data) {
+        return Hashing.sha1()
+            .hashBytes(data)
+            .toString();
+    }
+
+    // Ore names are kept as names unless resolveOres is set, in which case their items are written as foods instead
+    public static void write(DataOutput output, List<Nutrient> nutrients, boolean resolveOres) throws IOException {
+        Set<String> existingOreNames = resolveOres ? new HashSet<>(Arrays.asList(OreDictionary.getOreNames())) : null;
+
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(nutrients.size());
+        for (Nutrient nutrient : nutrients) {
+            output.writeUTF(nutrient.name);
+            writeItemStack(output, nutrient.icon);
+            output.writeInt(nutrient.color);
+            output.writeInt(nutrient.startingNutrition);
+            output.writeInt(nutrient.deathPenaltyMin);
+            output.writeInt(nutrient.deathPenaltyLoss);
+            output.writeFloat(nutrient.decay);
+            output.writeBoolean(nutrient.visible);
+
+            List<String> oreNames = resolveOres ? Collections.emptyList() : nutrient.foodOreDict;
+            output.writeInt(oreNames.size());
+            for (String oreName : oreNames) {
+                output.writeUTF(oreName);
+            }
+
+            // ItemStack keys hash by identity, so sort them for the same nutrients to always hash the same
+            List<Map.Entry<ItemStack, Float>> foods = new ArrayList<>(nutrient.foodItems.entrySet());
+            if (resolveOres) foods.addAll(resolveOreFoods(nutrient, existingOreNames));
+            foods.sort(FOOD_ORDER);
+            output.writeInt(foods.size());
+            for (Map.Entry<ItemStack, Float> food : foods) {
+                writeItemStack(output, food.getKey());
+                output.writeFloat(food.getValue());
+            }
+        }
+    }
+
+    public static List<Nutrient> read(DataInput input) throws IOException {
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported nutrient snapshot version " + version);
+
+        int nutrientCount = input.readInt();
+        List<Nutrient> nutrients = new ArrayList<>(nutrientCount);
+        for (int i = 0; i < nutrientCount; i++) {
+            Nutrient nutrient = new Nutrient();
+            nutrient.name = input.readUTF();
+            nutrient.icon = readItemStack(input);
+            nutrient.color = input.readInt();
+            nutrient.startingNutrition = input.readInt();
+            nutrient.deathPenaltyMin = input.readInt();
+            nutrient.deathPenaltyLoss = input.readInt();
+            nutrient.decay = input.readFloat();
+            nutrient.visible = input.readBoolean();
+
+            int oreCount = input.readInt();
+            for (int j = 0; j < oreCount; j++) {
+                nutrient.foodOreDict.add(input.readUTF());
+            }
+
+            int foodCount = input.readInt();
+            for (int j = 0; j < foodCount; j++) {
+                ItemStack itemStack = readItemStack(input);
+                float value = input.readFloat();
+                if (itemStack != null) nutrient.foodItems.put(itemStack, value);
+            }
+
+            nutrients.add(nutrient);
+        }
+        return nutrients;
+    }
+
+    // Returns items of the nutrient's ore names as foods with the default value (0), as FoodIndex matches them
+    // Items the nutrient lists itself are left out, as listed values take priority over ore names
+    private static List<Map.Entry<ItemStack, Float>> resolveOreFoods(Nutrient nutrient, Set<String> existingOreNames) {
+        Set<String> listed = new HashSet<>();
+        for (ItemStack itemStack : nutrient.foodItems.keySet()) {
+            listed.add(getItemName(itemStack) + "@" + itemStack.getItemDamage());
+        }
+
+        Map<String, Map.Entry<ItemStack, Float>> oreFoods = new LinkedHashMap<>();
+        for (String oreName : nutrient.foodOreDict) {
+            if (!existingOreNames.contains(oreName)) continue; // Don't create ore names nothing has registered
+            for (ItemStack itemStack : OreDictionary.getOres(oreName)) {
+                if (itemStack == null || itemStack.getItem() == null) continue;
+                String name = getItemName(itemStack);
+                String key = name + "@" + itemStack.getItemDamage();
+                if (listed.contains(key) || listed.contains(name + "@" + OreDictionary.WILDCARD_VALUE)) continue;
+                oreFoods.putIfAbsent(key, new AbstractMap.SimpleImmutableEntry<>(itemStack, 0F));
+            }
+        }
+        return new ArrayList<>(oreFoods.values());
+    }
+
+    private static void writeItemStack(DataOutput output, ItemStack itemStack) throws IOException {
+        output.writeUTF(getItemName(itemStack));
+        output.writeInt((itemStack != null) ? itemStack.getItemDamage() : 0);
+    }
+
+    // Returns registry name of the stack's item ("" if none)
+    private static String getItemName(ItemStack itemStack) {
+        Item item = (itemStack != null) ? itemStack.getItem() : null;
+        String name = (item != null) ? Item.itemRegistry.getNameForObject(item) : null;
+        return (name != null) ? name : "";
+    }
+
+    // Returns null if the item doesn't exist
+    private static ItemStack readItemStack(DataInput input) throws IOException {
+        String name = input.readUTF();
+        int metadata = input.readInt();
+        Item item = name.isEmpty() ? null : (Item) Item.itemRegistry.getObject(name);
+        return (item != null) ? new ItemStack(item, 1, metadata) : null;
+    }
+}
@@ -1,12 +1,10 @@
 package ca.wescook.nutrition.nutrients;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemBucketMilk;
 import net.minecraft.item.ItemStack;
-import net.minecraftforge.oredict.OreDictionary;
 
 import ca.wescook.nutrition.utility.Config;
 import ca.wescook.nutrition.utility.Log;
@@ -14,33 +12,11 @@ import squeek.applecore.api.AppleCoreAPI;
 
 public class NutrientUtils {
 
-    // Returns list of nutrients that food belongs to
+    // Returns nutrients that food belongs to, mapped to their custom value (0 if unset)
+    // The returned map is shared and immutable
     public static Map<Nutrient, Float> getFoodNutrients(ItemStack eatingFood) {
-        Map<Nutrient, Float> nutrientsFound = new HashMap<>();
-
-        // Loop through nutrients to look for food
-        foodSearch: for (Nutrient nutrient : NutrientList.get()) { // All nutrients
-            // Search foods
-            for (ItemStack listedFood : nutrient.foodItems.keySet()) { // All foods in that category
-                if (listedFood.isItemEqual(eatingFood)) {
-                    nutrientsFound.put(nutrient, nutrient.foodItems.get(listedFood));// Add nutrient
-                    continue foodSearch; // Skip rest of search in this nutrient, try others
-                }
-            }
-
-            // Search ore dictionary
-            for (String listedOreDict : nutrient.foodOreDict) { // All ore dicts in that nutrient
-                for (ItemStack itemStack : OreDictionary.getOres(listedOreDict)) { // All items that match that oredict
-                    // (eg. listAllmilk)
-                    if (itemStack.isItemEqual(eatingFood)) { // Our food matches oredict
-                        nutrientsFound.put(nutrient, 0F); // Add nutrient
-                        continue foodSearch; // Skip rest of search in this nutrient, try others
-                    }
-                }
-            }
-        }
-
-        return nutrientsFound;
+        return NutrientList.getFoodIndex()
+            .get(eatingFood);
     }
 
     // Calculate nutrition value for supplied food
@@ -49,6 +25,11 @@ public class NutrientUtils {
         return getNutrientValue(foodValues, nutrients.size());
     }
 
+    // Foods listed without a custom value use the calculated default
+    public static float resolveValue(float customValue, float defaultValue) {
+        return customValue == 0F ? defaultValue : customValue;
+    }
+
     public static float getNutrientValue(int hungerValue, int numNutrients) {
         // Apply multipliers
         float adjustedFoodValue = (float) (hungerValue * 0.5); // Halve to start at reasonable starting point
@@ -1,14 +1,15 @@
 package ca.wescook.nutrition.proxy;
 
-import java.util.Stack;
-
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.settings.KeyBinding;
 import net.minecraftforge.common.MinecraftForge;
 
 import ca.wescook.nutrition.data.NutrientManager;
+import ca.wescook.nutrition.data.PredictionLog;
 import ca.wescook.nutrition.events.EventNutritionButton;
 import ca.wescook.nutrition.events.EventNutritionKey;
 import ca.wescook.nutrition.events.EventTooltip;
+import ca.wescook.nutrition.network.NutrientTable;
 import ca.wescook.nutrition.utility.Config;
 import cpw.mods.fml.client.registry.ClientRegistry;
 import cpw.mods.fml.common.FMLCommonHandler;
@@ -17,10 +18,10 @@ import cpw.mods.fml.common.event.FMLInitializationEvent;
 public class ClientProxy extends CommonProxy {
 
     public static NutrientManager localNutrition; // Holds local copy of data/methods for client-side prediction
+    public static final PredictionLog predictions = new PredictionLog(); // Local changes not yet confirmed by server
+    public static NutrientTable nutrientTable; // Server's nutrient ordinals, received before nutrition updates
     public static KeyBinding keyNutritionGui;
 
-    private static final Stack<Integer> hungerValues = new Stack<>();
-
     @Override
     public void init(FMLInitializationEvent event) {
         if (Config.enableGui) { // If GUI is enabled
@@ -43,21 +44,10 @@ public class ClientProxy extends CommonProxy {
         return true;
     }
 
-    public static void pushHungerChange(int hungerValue) {
-        hungerValues.push(hungerValue);
-    }
-
-    public static void popHungerChange() {
-        if (!hungerValues.empty()) {
-            hungerValues.pop();
-        }
-    }
-
-    public static int getUnappliedHungerValues() {
-        int unapplied = 0;
-        while (!hungerValues.empty()) {
-            unapplied += hungerValues.pop();
-        }
-        return unapplied;
+    // Runs task on the client thread, which owns client nutrition data and reads registered nutrients
+    // Packet handlers are called on a network thread, so hand their work over with this
+    public static void runOnClientThread(Runnable task) {
+        Minecraft.getMinecraft()
+            .func_152344_a(task);
     }
 }
@@ -15,6 +15,8 @@ import net.minecraft.util.ChatComponentText;
 import com.google.common.primitives.Floats;
 
 import ca.wescook.nutrition.data.PlayerDataHandler;
+import ca.wescook.nutrition.network.PacketRateLimiter;
+import ca.wescook.nutrition.network.ServerTaskQueue;
 import ca.wescook.nutrition.network.Sync;
 import ca.wescook.nutrition.nutrients.Nutrient;
 import ca.wescook.nutrition.nutrients.NutrientList;
@@ -27,7 +29,7 @@ public class ChatCommand extends CommandBase {
                                                                                                             // following
                                                                                                             // these
                                                                                                             // subcommands
-    private final String helpString = "/nutrition <get/set/add/subtract/reset/reload> <player> <nutrient> <value>";
+    private final String helpString = "/nutrition <get/set/add/subtract/reset/reload/stats> <player> <nutrient> <value>";
 
     private enum actions {
         SET,
@@ -55,7 +57,7 @@ public class ChatCommand extends CommandBase {
         if (args.length == 1) { // Sub-commands list
             return getListOfStringsFromIterableMatchingLastWord(
                 args,
-                Arrays.asList("get", "set", "add", "subtract", "reset", "reload"));
+                Arrays.asList("get", "set", "add", "subtract", "reset", "reload", "stats"));
         } else if (args.length == 2 && playerSubCommands.contains(args[0])) { // Player list/reload command
             return getListOfStringsMatchingLastWord(
                 args,
@@ -87,6 +89,7 @@ public class ChatCommand extends CommandBase {
         else if (args[0].equals("subtract")) commandSetNutrition(player, sender, args, actions.SUBTRACT);
         else if (args[0].equals("reset")) commandResetNutrition(player, sender, args);
         else if (args[0].equals("reload")) commandReload(sender);
+        else if (args[0].equals("stats")) commandStats(sender);
     }
 
     private void commandHelp(ICommandSender sender) {
@@ -94,16 +97,35 @@ public class ChatCommand extends CommandBase {
     }
 
     private void commandReload(ICommandSender sender) {
-        DataImporter.reload();
-        DataImporter.updatePlayerCapabilitiesOnServer(MinecraftServer.getServer());
-        sender.addChatMessage(new ChatComponentText("Nutrients and effects reloaded"));
+        DataImporter.reload(
+            MinecraftServer.getServer(),
+            null,
+            success -> sender.addChatMessage(
+                new ChatComponentText(
+                    success ? "Nutrients and effects reloaded"
+                        : "Unable to reload nutrients and effects, check the server log")));
+    }
+
+    private void commandStats(ICommandSender sender) {
+        sender.addChatMessage(
+            new ChatComponentText(
+                "Stored player data: " + PlayerDataHandler.getStorageSize()
+                    + " players, ~"
+                    + PlayerDataHandler.estimateRetainedBytes() / 1024
+                    + " KiB"));
+        sender.addChatMessage(
+            new ChatComponentText(
+                "Packets dropped: " + PacketRateLimiter.getDroppedCount()
+                    + " over rate limit, "
+                    + ServerTaskQueue.getRejectedCount()
+                    + " by full queue"));
     }
 
     private void commandGetNutrition(EntityPlayer player, ICommandSender sender, String[] args) {
         // Write nutrient name and percentage to chat
         Nutrient nutrient = NutrientList.getByName(args[2]);
         if (nutrient != null) {
-            Float nutrientValue = PlayerDataHandler.getForPlayer(player)
+            float nutrientValue = PlayerDataHandler.getForPlayer(player)
                 .get(nutrient);
             sender.addChatMessage(
                 new ChatComponentText(nutrient.name + ": " + String.format("%.2f", nutrientValue) + "%"));
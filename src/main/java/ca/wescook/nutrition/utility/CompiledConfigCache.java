@@ -0,0 +1,226 @@
+package ca.wescook.nutrition.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.potion.Potion;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import ca.wescook.nutrition.Tags;
+import ca.wescook.nutrition.effects.Effect;
+import ca.wescook.nutrition.nutrients.Definitions;
+import ca.wescook.nutrition.nutrients.Nutrient;
+import ca.wescook.nutrition.nutrients.NutrientSnapshot;
+import cpw.mods.fml.common.Loader;
+import cpw.mods.fml.common.ModContainer;
+
+// Parsed nutrients and effects, stored as binary so that unchanged configs don't need parsing again
+// Keyed by a hash of everything parsing depends on: JSON contents, config defaults, loaded mods and registered items
+public class CompiledConfigCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    // Game key last computed, and the number of registered items it was computed with
+    private static String gameKey;
+    private static int gameKeyItemCount = -1;
+
+    // Returns hash of the loaded mods and registered items, which parsing also depends on
+    // Items are no longer registered once the game has loaded, so the hash is only computed again if the item count
+    // changed (eg. if items were registered after nutrients were first loaded during Post-Init)
+    // Must be called from the server thread, as it reads the item registry
+    public static String getGameKey() {
+        int itemCount = Item.itemRegistry.getKeys()
+            .size();
+        if (gameKey == null || itemCount != gameKeyItemCount) {
+            gameKey = computeGameKey();
+            gameKeyItemCount = itemCount;
+        }
+        return gameKey;
+    }
+
+    private static String computeGameKey() {
+        Hasher hasher = Hashing.sha1()
+            .newHasher();
+
+        // Loaded mods
+        for (ModContainer mod : Loader.instance()
+            .getActiveModList()) {
+            hasher.putString(mod.getModId(), StandardCharsets.UTF_8);
+            hasher.putString(String.valueOf(mod.getVersion()), StandardCharsets.UTF_8);
+        }
+
+        // Registered item names, sorted as items are cached by name, so numeric IDs (which vary by world) don't matter
+        List<String> itemNames = new ArrayList<>();
+        for (Object object : Item.itemRegistry) {
+            itemNames.add(String.valueOf(Item.itemRegistry.getNameForObject(object)));
+        }
+        Collections.sort(itemNames);
+        for (String itemName : itemNames) {
+            hasher.putString(itemName, StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash()
+            .toString();
+    }
+
+    // Returns key identifying the result of parsing the supplied files (with their contents) in this game instance
+    // Doesn't touch any registries (gameKey is from getGameKey), so may run off the server thread
+    public static String getKey(List<File> nutrientFiles, List<File> effectFiles, Map<File, byte[]> contents,
+        String gameKey) {
+        Hasher hasher = Hashing.sha1()
+            .newHasher();
+        hasher.putInt(FORMAT_VERSION);
+
+        // JSON contents
+        putFiles(hasher, nutrientFiles, contents);
+        putFiles(hasher, effectFiles, contents);
+
+        // Config values used as defaults while parsing
+        hasher.putInt(Config.startingNutrition);
+        hasher.putInt(Config.deathPenaltyMin);
+        hasher.putInt(Config.deathPenaltyLoss);
+        hasher.putFloat(Config.decayMultiplier);
+
+        hasher.putString(gameKey, StandardCharsets.UTF_8);
+        return hasher.hash()
+            .toString();
+    }
+
+    private static void putFiles(Hasher hasher, List<File> files, Map<File, byte[]> contents) {
+        hasher.putInt(files.size());
+        for (File file : files) {
+            hasher.putString(file.getName(), StandardCharsets.UTF_8);
+            byte[] fileContents = contents.get(file);
+            hasher.putInt(fileContents.length);
+            hasher.putBytes(fileContents);
+        }
+    }
+
+    // Returns compiled config if it matches key, or null if it doesn't (or can't be read)
+    // Only reads the file, so may run off the server thread
+    public static byte[] read(String key) {
+        File file = getFile();
+        if (!file.isFile()) return null;
+
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+            if (input.readInt() != FORMAT_VERSION || !input.readUTF()
+                .equals(key)) return null;
+            return data;
+        } catch (IOException e) {
+            Log.warn("Unable to read compiled nutrition config, parsing JSON instead: " + e);
+            return null;
+        }
+    }
+
+    // Returns nutrients and effects from compiled config returned by read, or null if it can't be loaded
+    // Must be called from the server thread, as it looks up items, ore names and potions
+    public static Definitions load(byte[] data) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+            input.readInt(); // Format and key, already checked by read
+            input.readUTF();
+
+            Definitions definitions = Definitions.of(NutrientSnapshot.read(input));
+            return definitions.withEffects(readEffects(input, definitions)); // Nutrients must be read first
+        } catch (IOException e) {
+            Log.warn("Unable to load compiled nutrition config, parsing JSON instead: " + e);
+            return null;
+        }
+    }
+
+    public static void save(String key, Definitions definitions) {
+        File file = getFile();
+        file.getParentFile()
+            .mkdirs();
+
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(key);
+            NutrientSnapshot.write(output, definitions.getNutrients(), false); // Ores resolved again when loaded
+            writeEffects(output, definitions.getEffects());
+        } catch (IOException e) {
+            Log.warn("Unable to write compiled nutrition config: " + e);
+            file.delete();
+        }
+    }
+
+    private static void writeEffects(DataOutput output, List<Effect> effects) throws IOException {
+        output.writeInt(effects.size());
+        for (Effect effect : effects) {
+            output.writeUTF(effect.name);
+            output.writeUTF(effect.potion.getName());
+            output.writeInt(effect.amplifier);
+            output.writeInt(effect.minimum);
+            output.writeInt(effect.maximum);
+            output.writeUTF(effect.detectionType.name());
+            output.writeInt(effect.cumulativeModifier);
+            output.writeInt(effect.nutrients.size());
+            for (Nutrient nutrient : effect.nutrients) {
+                output.writeUTF(nutrient.name);
+            }
+        }
+    }
+
+    // Nutrients are looked up from the supplied definitions
+    private static List<Effect> readEffects(DataInput input, Definitions definitions) throws IOException {
+        int effectCount = input.readInt();
+        List<Effect> effects = new ArrayList<>(effectCount);
+        for (int i = 0; i < effectCount; i++) {
+            String name = input.readUTF();
+            Potion potion = getPotionByName(input.readUTF());
+            int amplifier = input.readInt();
+            int minimum = input.readInt();
+            int maximum = input.readInt();
+            Effect.EnumDetectionType detectionType;
+            try {
+                detectionType = Effect.EnumDetectionType.valueOf(input.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e);
+            }
+            int cumulativeModifier = input.readInt();
+
+            int nutrientCount = input.readInt();
+            List<Nutrient> nutrients = new ArrayList<>(nutrientCount);
+            for (int j = 0; j < nutrientCount; j++) {
+                Nutrient nutrient = definitions.getNutrient(input.readUTF());
+                if (nutrient == null) throw new IOException("Unknown nutrient in effect " + name);
+                nutrients.add(nutrient);
+            }
+
+            if (potion == null) throw new IOException("Unknown potion in effect " + name);
+            effects.add(
+                new Effect(name, potion, amplifier, minimum, maximum, detectionType, nutrients, cumulativeModifier));
+        }
+        return effects;
+    }
+
+    private static Potion getPotionByName(String name) {
+        for (Potion potion : Potion.potionTypes) {
+            if (potion != null && potion.getName()
+                .equals(name)) return potion;
+        }
+        return null;
+    }
+
+    private static File getFile() {
+        return new File(Config.configDirectory, Tags.MODID + "/cache/compiled.bin");
+    }
+}
@@ -29,6 +29,13 @@ public class Config {
     public static String buttonAnchor;
     public static boolean logMissingFood;
     public static boolean logMissingNutrients;
+    public static boolean asyncEffects;
+    public static int effectWorkerThreads;
+    public static int syncPrecision;
+    public static int nutritionRequestRate;
+    public static boolean parallelLoading;
+    public static boolean watchConfigFiles;
+    public static boolean asyncReload;
 
     // Categories
     private static final String CATEGORY_NUTRITION = "Nutrition";
@@ -36,6 +43,7 @@ public class Config {
     private static final String CATEGORY_DEATH_PENALTY = "Death Penalty";
     private static final String CATEGORY_GUI = "Gui";
     private static final String CATEGORY_LOGGING = "Logging";
+    private static final String CATEGORY_PERFORMANCE = "Performance";
 
     public static void registerConfigs(File configDirectory) {
         // Update config path for later reference
@@ -153,6 +161,52 @@ public class Config {
             false,
             "Log foods which have been found but do not have any associated nutrients.");
 
+        asyncEffects = configFile.getBoolean(
+            "AsyncEffects",
+            CATEGORY_PERFORMANCE,
+            true,
+            "Evaluate nutrition effects on worker threads, applying the results on a later tick.\n"
+                + "Disable to evaluate effects on the server thread instead.");
+        effectWorkerThreads = configFile.getInt(
+            "EffectWorkerThreads",
+            CATEGORY_PERFORMANCE,
+            2,
+            1,
+            16,
+            "Number of worker threads evaluating nutrition effects, if AsyncEffects is enabled.");
+        syncPrecision = configFile.getInt(
+            "SyncPrecision",
+            CATEGORY_PERFORMANCE,
+            1,
+            0,
+            3,
+            "Decimal places of nutrition values sent to clients.\n"
+                + "The GUI only shows whole percentages, and changes smaller than this aren't sent.");
+        nutritionRequestRate = configFile.getInt(
+            "NutritionRequestRate",
+            CATEGORY_PERFORMANCE,
+            5,
+            1,
+            100,
+            "Nutrition requests each player may send per second.  Further requests are dropped.");
+        parallelLoading = configFile.getBoolean(
+            "ParallelLoading",
+            CATEGORY_PERFORMANCE,
+            true,
+            "Read nutrient and effect JSON files on multiple threads.");
+        watchConfigFiles = configFile.getBoolean(
+            "WatchConfigFiles",
+            CATEGORY_PERFORMANCE,
+            false,
+            "Reload nutrient and effect JSON files as soon as they're saved, reading only the files which changed.\n"
+                + "Intended for editing nutrients on a test server.");
+        asyncReload = configFile.getBoolean(
+            "AsyncReload",
+            CATEGORY_PERFORMANCE,
+            true,
+            "Read nutrient and effect JSON on a background thread when reloading, switching over once they're ready.\n"
+                + "Disable to reload on the server thread instead.");
+
         // Update file
         if (configFile.hasChanged()) configFile.save();
     }
@@ -0,0 +1,115 @@
+package ca.wescook.nutrition.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.minecraft.server.MinecraftServer;
+
+// Watches the nutrient and effect directories, so edited files are reloaded without running /nutrition reload
+// The watcher thread only records which files changed, reloads are started from the server thread between ticks
+public class ConfigWatcher {
+
+    // Editors often save a file in several writes, so wait for changes to settle before reloading
+    private static final long SETTLE_MILLIS = 500;
+
+    private static final Set<File> CHANGED_FILES = ConcurrentHashMap.newKeySet();
+    private static volatile long lastChangeTime;
+
+    private static WatchService watchService;
+
+    // Called when the server starts, after nutrients are first loaded
+    public static void start() {
+        if (!Config.watchConfigFiles || watchService != null) return;
+
+        try {
+            watchService = FileSystems.getDefault()
+                .newWatchService();
+            register(DataImporter.getNutrientDirectory());
+            register(DataImporter.getEffectDirectory());
+        } catch (IOException e) {
+            Log.warn("Unable to watch nutrition config for changes: " + e);
+            stop();
+            return;
+        }
+
+        WatchService service = watchService;
+        Thread thread = new Thread(() -> watch(service), "Nutrition Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void register(File directory) throws IOException {
+        directory.toPath()
+            .register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    // Runs until the watch service is closed
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Events were lost, so treat every file in the directory as changed
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        CHANGED_FILES.add(directory.toFile());
+                    } else {
+                        Path name = (Path) event.context();
+                        if (name.toString()
+                            .toLowerCase()
+                            .endsWith(".json")) {
+                            CHANGED_FILES.add(
+                                directory.resolve(name)
+                                    .toFile());
+                        }
+                    }
+                    lastChangeTime = System.currentTimeMillis();
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    // Reloads changed files once they've settled
+    // Called at the end of each server tick
+    public static void tick(MinecraftServer server) {
+        if (CHANGED_FILES.isEmpty() || System.currentTimeMillis() - lastChangeTime < SETTLE_MILLIS) return;
+
+        Set<File> changedFiles = new HashSet<>();
+        for (File file : CHANGED_FILES) {
+            if (CHANGED_FILES.remove(file)) changedFiles.add(file);
+        }
+
+        // If a file was saved part way through being edited, current definitions are kept until it's saved again
+        DataImporter.reload(server, changedFiles, success -> {});
+    }
+
+    // Called when the server stops
+    public static void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                Log.warn("Unable to stop watching nutrition config: " + e);
+            }
+            watchService = null;
+        }
+        CHANGED_FILES.clear();
+    }
+}
@@ -1,13 +1,30 @@
 package ca.wescook.nutrition.utility;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.server.MinecraftServer;
@@ -19,8 +36,9 @@ import com.google.gson.stream.JsonReader;
 
 import ca.wescook.nutrition.Tags;
 import ca.wescook.nutrition.data.PlayerDataHandler;
-import ca.wescook.nutrition.effects.EffectsList;
 import ca.wescook.nutrition.effects.JsonEffect;
+import ca.wescook.nutrition.network.Sync;
+import ca.wescook.nutrition.nutrients.Definitions;
 import ca.wescook.nutrition.nutrients.JsonNutrient;
 import ca.wescook.nutrition.nutrients.NutrientList;
 import ca.wescook.nutrition.nutrients.NutrientUtils;
@@ -32,40 +50,260 @@ public class DataImporter {
         .setPrettyPrinting()
         .create();
 
-    // Loads nutrients from JSONs and API
-    // Runs initially during Post-Init, or from /reload command
-    // Always call updatePlayerCapabilitiesOnServer() afterward if world is loaded
+    private static final int MAX_LOADING_THREADS = 4; // Upper bound for reading JSON in parallel
+
+    // JSON read from each file, so that reloading changed files doesn't read every other file again
+    private static final Map<File, Object> PARSED_FILES = new ConcurrentHashMap<>();
+
+    // Reloads are read one at a time on the loader thread (if AsyncReload is enabled), and built by tick()
+    private static final Queue<Completed> COMPLETED = new ConcurrentLinkedQueue<>();
+    private static ExecutorService loader;
+
+    // Loads nutrients from JSONs and API on the calling thread
+    // Runs initially during Post-Init (dedicated server) or server start (integrated server)
     public static void reload() {
-        NutrientList.register(DataParser.parseNutrients(loadJsonNutrients()));
-        EffectsList.register(DataParser.parseEffects(loadJsonEffects()));
+        NutrientList.publish(build(read(null, CompiledConfigCache.getGameKey())));
 
         // List all foods registered in-game without nutrients
         if (Config.logMissingNutrients) NutrientUtils.findRegisteredFoods();
     }
 
+    // Reloads nutrients and effects while the server is running, remapping players in the tick they're published
+    // Only changedFiles (files or directories) are read again if supplied, otherwise everything is
+    // onFinished is told if the reload succeeded, on the server thread
+    // Must be called from the server thread
+    public static void reload(MinecraftServer server, Set<File> changedFiles, Consumer<Boolean> onFinished) {
+        String gameKey = (changedFiles == null) ? CompiledConfigCache.getGameKey() : null; // Reads registries
+        if (!Config.asyncReload) {
+            finish(server, readCompleted(changedFiles, gameKey, onFinished));
+            return;
+        }
+
+        try {
+            getLoader().execute(() -> COMPLETED.add(readCompleted(changedFiles, gameKey, onFinished)));
+        } catch (RejectedExecutionException e) {
+            onFinished.accept(false);
+        }
+    }
+
+    // Builds and publishes reloads read since the last tick
+    // Called at the end of each server tick
+    public static void tick(MinecraftServer server) {
+        Completed completed;
+        while ((completed = COMPLETED.poll()) != null) {
+            finish(server, completed);
+        }
+    }
+
+    // Called when the server stops
+    public static void shutdown() {
+        if (loader != null) {
+            loader.shutdownNow();
+            loader = null;
+        }
+        COMPLETED.clear();
+    }
+
+    // Builds definitions from what was read, publishes them if anything changed, and remaps players to them
+    // Runs on the server thread, as resolving items and ore names uses the game registries
+    private static void finish(MinecraftServer server, Completed completed) {
+        if (completed.read == null) {
+            completed.onFinished.accept(false);
+            return;
+        }
+
+        Definitions previous = NutrientList.getDefinitions();
+        Definitions definitions;
+        try {
+            definitions = build(completed.read);
+        } catch (RuntimeException e) {
+            Log.error("Unable to reload nutrition config, keeping current nutrients and effects: " + e);
+            completed.onFinished.accept(false);
+            return;
+        }
+
+        if (definitions != previous) {
+            NutrientList.publish(definitions);
+            updatePlayerCapabilitiesOnServer(server, previous, definitions);
+            if (definitions.getNutrients() != previous.getNutrients() && Config.logMissingNutrients) {
+                NutrientUtils.findRegisteredFoods();
+            }
+            Log.info("Reloaded nutrients and effects");
+        }
+        completed.onFinished.accept(true);
+    }
+
+    private static Completed readCompleted(Set<File> changedFiles, String gameKey, Consumer<Boolean> onFinished) {
+        try {
+            return new Completed(read(changedFiles, gameKey), onFinished);
+        } catch (RuntimeException e) {
+            Log.error("Unable to reload nutrition config, keeping current nutrients and effects: " + e);
+            return new Completed(null, onFinished);
+        }
+    }
+
+    // Reads config files, only changedFiles again if supplied (otherwise everything, see readAll)
+    // Doesn't touch any registries or anything in use, so may run off the server thread
+    private static Read read(Set<File> changedFiles, String gameKey) {
+        return (changedFiles != null) ? readChanged(changedFiles) : readAll(gameKey);
+    }
+
+    // Reads every file once, and only parses the JSON if the compiled config is out of date
+    private static Read readAll(String gameKey) {
+        PARSED_FILES.clear(); // Read everything again
+
+        List<File> nutrientFiles = listJsonNutrients();
+        List<File> effectFiles = listJsonEffects();
+
+        Map<File, byte[]> contents = null;
+        String cacheKey = null;
+        try {
+            contents = readContents(nutrientFiles, effectFiles);
+            cacheKey = CompiledConfigCache.getKey(nutrientFiles, effectFiles, contents, gameKey);
+        } catch (IOException e) {
+            Log.warn("Unable to check compiled nutrition config: " + e);
+        }
+
+        // Use compiled config if nothing it depends on has changed
+        // Foods are only checked while parsing, so it isn't used while missing foods are being logged
+        if (cacheKey != null && !Config.logMissingFood) {
+            byte[] compiled = CompiledConfigCache.read(cacheKey);
+            if (compiled != null) return new Read(null, null, compiled, null);
+        }
+
+        return new Read(
+            readConfigurationFiles(JsonNutrient.class, nutrientFiles, contents),
+            readConfigurationFiles(JsonEffect.class, effectFiles, contents),
+            null,
+            cacheKey);
+    }
+
+    private static Map<File, byte[]> readContents(List<File> nutrientFiles, List<File> effectFiles)
+        throws IOException {
+        Map<File, byte[]> contents = new HashMap<>();
+        for (File file : nutrientFiles) contents.put(file, Files.readAllBytes(file.toPath()));
+        for (File file : effectFiles) contents.put(file, Files.readAllBytes(file.toPath()));
+        return contents;
+    }
+
+    // Reads only the changed files again, leaving nutrients out if none of their files changed
+    // Effects are read again if nutrients changed, as they refer to nutrients
+    private static Read readChanged(Set<File> changedFiles) {
+        Set<File> changed = new HashSet<>();
+        for (File file : changedFiles) changed.add(file.getAbsoluteFile());
+        PARSED_FILES.keySet()
+            .removeIf(file -> changed.contains(file) || changed.contains(file.getParentFile()));
+
+        boolean nutrientsChanged = containsFileIn(changed, getNutrientDirectory());
+        boolean effectsChanged = nutrientsChanged || containsFileIn(changed, getEffectDirectory());
+        return new Read(
+            nutrientsChanged ? readConfigurationFiles(JsonNutrient.class, listJsonNutrients(), null) : null,
+            effectsChanged ? readConfigurationFiles(JsonEffect.class, listJsonEffects(), null) : null,
+            null,
+            null);
+    }
+
+    // Builds definitions from what was read, on top of those currently published (returned as is if nothing changed)
+    // Must be called from the server thread
+    private static Definitions build(Read read) {
+        if (read.compiled != null) {
+            Definitions compiled = CompiledConfigCache.load(read.compiled);
+            if (compiled != null) return compiled;
+
+            // Rare (compiled config changed since it was checked), so JSON is read here rather than on the loader
+            read = new Read(
+                readConfigurationFiles(JsonNutrient.class, listJsonNutrients(), null),
+                readConfigurationFiles(JsonEffect.class, listJsonEffects(), null),
+                null,
+                null);
+        }
+
+        Definitions base = NutrientList.getDefinitions();
+        if (read.effects == null) return base; // Nothing changed
+
+        Definitions definitions = base;
+        if (read.nutrients != null) definitions = Definitions.of(DataParser.parseNutrients(read.nutrients));
+        definitions = definitions.withEffects(DataParser.parseEffects(read.effects, definitions));
+        if (read.cacheKey != null) CompiledConfigCache.save(read.cacheKey, definitions);
+        return definitions;
+    }
+
+    private static boolean containsFileIn(Set<File> files, File directory) {
+        File absoluteDirectory = directory.getAbsoluteFile();
+        for (File file : files) {
+            if (file.equals(absoluteDirectory) || absoluteDirectory.equals(file.getParentFile())) return true;
+        }
+        return false;
+    }
+
     // Updates player capabilities on server so object IDs match those in NutrientList
-    public static void updatePlayerCapabilitiesOnServer(MinecraftServer server) {
+    // Players whose nutrients are in the same order keep their values as they are (see NutrientManager#update)
+    private static void updatePlayerCapabilitiesOnServer(MinecraftServer server, Definitions previous,
+        Definitions definitions) {
         for (EntityPlayerMP player : server.getConfigurationManager().playerEntityList) {
             if (!server.worldServerForDimension(0).isRemote) {
                 PlayerDataHandler.getForPlayer(player)
                     .update();
             }
         }
+
+        // Clients only need everything again if nutrients were added, removed or reordered
+        String hash = definitions.getSnapshot()
+            .getHash();
+        String previousHash = previous.getSnapshot()
+            .getHash();
+        if (!definitions.hasSameLayout(previous)) resendNutrients(server);
+        else if (!hash.equals(previousHash)) resendFoods(server); // Nothing to send if nothing changed
+    }
+
+    // Sends the nutrient table to every client again, along with all of their values
+    private static void resendNutrients(MinecraftServer server) {
+        for (EntityPlayerMP player : server.getConfigurationManager().playerEntityList) {
+            Sync.resetPlayer(player, true);
+            Sync.fullServerRequest(player);
+        }
+    }
+
+    // Sends the nutrient table to every client again, so they pick up changed foods
+    // Nutrients are the same and in the same order, so clients keep their values
+    private static void resendFoods(MinecraftServer server) {
+        for (EntityPlayerMP player : server.getConfigurationManager().playerEntityList) {
+            Sync.resendTable(player);
+        }
+    }
+
+    private static ExecutorService getLoader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Nutrition Config Loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loader;
+    }
+
+    static File getNutrientDirectory() {
+        return new File(Config.configDirectory, Tags.MODID + "/nutrients");
+    }
+
+    static File getEffectDirectory() {
+        return new File(Config.configDirectory, Tags.MODID + "/effects");
     }
 
     //////////////////////////////////////////////////
 
-    // Creates and parses nutrient json files into objects, returned as list
-    private static List<JsonNutrient> loadJsonNutrients() {
+    // Creates nutrient json files if missing, returning all of them
+    private static List<File> listJsonNutrients() {
         List<String> nutrientFiles = Lists
             .newArrayList("dairy.json", "example.json", "fruit.json", "grain.json", "protein.json", "vegetable.json");
-        File nutrientDirectory = new File(Config.configDirectory, Tags.MODID + "/nutrients/");
+        File nutrientDirectory = getNutrientDirectory();
         createConfigurationDirectory("assets/nutrition/configs/nutrients", nutrientDirectory, nutrientFiles);
-        return readConfigurationDirectory(JsonNutrient.class, nutrientDirectory);
+        return listConfigurationDirectory(nutrientDirectory);
     }
 
-    // Creates and parses effect json files into objects, returned as list
-    private static List<JsonEffect> loadJsonEffects() {
+    // Creates effect json files if missing, returning all of them
+    private static List<File> listJsonEffects() {
         List<String> effectsFiles = Lists.newArrayList(
             "example.json",
             "mining_fatigue.json",
@@ -73,9 +311,9 @@ public class DataImporter {
             "strength.json",
             "toughness.json",
             "weakness.json");
-        File effectsDirectory = new File(Config.configDirectory, Tags.MODID + "/effects");
+        File effectsDirectory = getEffectDirectory();
         createConfigurationDirectory("assets/nutrition/configs/effects", effectsDirectory, effectsFiles);
-        return readConfigurationDirectory(JsonEffect.class, effectsDirectory);
+        return listConfigurationDirectory(effectsDirectory);
     }
 
     // Copies files from internal resources to external files. Accepts an input resource path, output directory, and
@@ -101,9 +339,8 @@ public class DataImporter {
         }
     }
 
-    // Reads in JSON as objects. Accepts object to serialize into, and directory to read json files. Returns array of
-    // JSON objects.
-    private static <T> List<T> readConfigurationDirectory(Class<T> classImport, File configDirectory) {
+    // Lists json files in directory, sorted by name so they are always read in the same order
+    private static List<File> listConfigurationDirectory(File configDirectory) {
         File[] files = configDirectory.listFiles(new FilenameFilter() {
 
             @Override
@@ -113,20 +350,95 @@ public class DataImporter {
             }
 
         }); // List json files
-        List<T> jsonObjectList = new ArrayList<>(); // List json objects
+        if (files == null) return new ArrayList<>();
 
-        for (File file : files) {
-            try {
-                JsonReader jsonReader = new JsonReader(new FileReader(file)); // Read in JSON
-                jsonObjectList.add(gson.fromJson(jsonReader, classImport)); // Deserialize with GSON and store for later
-                                                                            // processing
-            } catch (IOException | com.google.gson.JsonSyntaxException e) {
-                Log.fatal("The file " + file.getName() + " has invalid JSON and could not be loaded.");
-                throw new IllegalArgumentException("Unable to load " + file.getName() + ".  Is the JSON valid?", e);
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.asList(files);
+    }
+
+    // Reads in JSON as objects. Accepts object to serialize into, and json files to read. Returns array of
+    // JSON objects, in the same order as the files.
+    // Contents already read from disk are parsed from memory, if supplied (may be null)
+    // Files are read in parallel if enabled, as parsing JSON doesn't touch any registries
+    private static <T> List<T> readConfigurationFiles(Class<T> classImport, List<File> files,
+        Map<File, byte[]> contents) {
+        if (!Config.parallelLoading || files.size() < 2) {
+            List<T> jsonObjectList = new ArrayList<>(); // List json objects
+            for (File file : files) {
+                jsonObjectList.add(readConfigurationFile(classImport, file, contents));
             }
+            return jsonObjectList;
         }
 
-        return jsonObjectList;
+        ForkJoinPool pool = new ForkJoinPool(
+            Math.min(
+                files.size(),
+                Math.min(
+                    Runtime.getRuntime()
+                        .availableProcessors(),
+                    MAX_LOADING_THREADS)));
+        try {
+            List<ForkJoinTask<T>> tasks = new ArrayList<>();
+            for (File file : files) {
+                tasks.add(pool.submit(() -> readConfigurationFile(classImport, file, contents)));
+            }
+
+            List<T> jsonObjectList = new ArrayList<>(); // List json objects, in file order
+            for (ForkJoinTask<T> task : tasks) {
+                jsonObjectList.add(task.join());
+            }
+            return jsonObjectList;
+        } finally {
+            pool.shutdown();
+        }
     }
 
+    // Returns JSON already read from this file, unless it has changed since
+    private static <T> T readConfigurationFile(Class<T> classImport, File file, Map<File, byte[]> contents) {
+        File absoluteFile = file.getAbsoluteFile();
+        Object cached = PARSED_FILES.get(absoluteFile);
+        if (classImport.isInstance(cached)) return classImport.cast(cached);
+
+        byte[] fileContents = (contents != null) ? contents.get(file) : null;
+        try (JsonReader jsonReader = new JsonReader(
+            (fileContents != null) ? new InputStreamReader(new ByteArrayInputStream(fileContents))
+                : new FileReader(file))) { // Read in JSON
+            T jsonObject = gson.fromJson(jsonReader, classImport); // Deserialize with GSON and store for later
+                                                                   // processing
+            if (jsonObject != null) PARSED_FILES.put(absoluteFile, jsonObject);
+            return jsonObject;
+        } catch (IOException | com.google.gson.JsonSyntaxException e) {
+            Log.fatal("The file " + file.getName() + " has invalid JSON and could not be loaded.");
+            throw new IllegalArgumentException("Unable to load " + file.getName() + ".  Is the JSON valid?", e);
+        }
+    }
+
+    // Config read by one reload, before anything is resolved against the game registries
+    // Either compiled config which is up to date, or parsed JSON
+    private static class Read {
+
+        private final List<JsonNutrient> nutrients; // Null if unchanged
+        private final List<JsonEffect> effects; // Null if unchanged (always read if nutrients were)
+        private final byte[] compiled; // Compiled config to use instead of JSON (null if out of date)
+        private final String cacheKey; // Key to compile parsed JSON under, if every file was read
+
+        private Read(List<JsonNutrient> nutrients, List<JsonEffect> effects, byte[] compiled, String cacheKey) {
+            this.nutrients = nutrients;
+            this.effects = effects;
+            this.compiled = compiled;
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    // Result of reading one reload, and who to tell once it's published
+    private static class Completed {
+
+        private final Read read; // Null if reading failed
+        private final Consumer<Boolean> onFinished;
+
+        private Completed(Read read, Consumer<Boolean> onFinished) {
+            this.read = read;
+            this.onFinished = onFinished;
+        }
+    }
 }
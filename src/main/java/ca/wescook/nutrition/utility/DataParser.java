@@ -11,9 +11,9 @@ import org.apache.commons.lang3.math.NumberUtils;
 
 import ca.wescook.nutrition.effects.Effect;
 import ca.wescook.nutrition.effects.JsonEffect;
+import ca.wescook.nutrition.nutrients.Definitions;
 import ca.wescook.nutrition.nutrients.JsonNutrient;
 import ca.wescook.nutrition.nutrients.Nutrient;
-import ca.wescook.nutrition.nutrients.NutrientList;
 import ca.wescook.nutrition.nutrients.NutrientUtils;
 import cpw.mods.fml.common.Loader;
 import cpw.mods.fml.common.registry.GameRegistry;
@@ -131,73 +131,80 @@ public class DataParser {
     }
 
     // Accepts a list of raw JSON objects, which are returned as cleaned Effects
-    public static List<Effect> parseEffects(List<JsonEffect> jsonEffects) {
+    // Nutrients are looked up from the supplied definitions, which may not be registered yet
+    public static List<Effect> parseEffects(List<JsonEffect> jsonEffects, Definitions definitions) {
         List<Effect> effects = new ArrayList<>();
 
         for (JsonEffect effectRaw : jsonEffects) {
             // Skip if effect is not enabled, or if field omitted (null)
             if (effectRaw.enabled != null && !effectRaw.enabled) continue;
 
-            Effect effect = new Effect();
-
-            boolean foundPotion = false;
+            Potion effectPotion = null;
             for (Potion potion : Potion.potionTypes) {
                 if (potion != null) {
                     if (effectRaw.potion.equals(potion.getName())) {
-                        effect.potion = potion;
-                        foundPotion = true;
+                        effectPotion = potion;
                         break;
                     }
                 }
             }
 
-            if (!foundPotion) {
+            if (effectPotion == null) {
                 Log.error("Potion '" + effectRaw.potion + "' is not valid (" + effectRaw.name + ").");
                 continue;
             }
 
             // Copying and cleaning data
-            effect.name = effectRaw.name;
-            effect.minimum = effectRaw.minimum;
-            effect.maximum = effectRaw.maximum;
-
+            Effect.EnumDetectionType detectionType;
             switch (effectRaw.detect.toLowerCase()) {
                 case "any" -> {
-                    effect.detectionType = Effect.EnumDetectionType.ANY;
+                    detectionType = Effect.EnumDetectionType.ANY;
                 }
                 case "average" -> {
-                    effect.detectionType = Effect.EnumDetectionType.AVERAGE;
+                    detectionType = Effect.EnumDetectionType.AVERAGE;
                 }
                 case "all" -> {
-                    effect.detectionType = Effect.EnumDetectionType.ALL;
+                    detectionType = Effect.EnumDetectionType.ALL;
 
                 }
                 case "cumulative" -> {
-                    effect.detectionType = Effect.EnumDetectionType.CUMULATIVE;
+                    detectionType = Effect.EnumDetectionType.CUMULATIVE;
                 }
                 default -> {
-                    effect.detectionType = Effect.EnumDetectionType.AVERAGE;
+                    detectionType = Effect.EnumDetectionType.AVERAGE;
                 }
             }
 
             // Amplifier defaults to 0 if undefined
-            effect.amplifier = (effectRaw.amplifier != null) ? effectRaw.amplifier : 0;
+            int amplifier = (effectRaw.amplifier != null) ? effectRaw.amplifier : 0;
 
             // Default the cumulative modifier to 1 if not defined
-            effect.cumulativeModifier = (effectRaw.cumulative_modifier != null) ? effectRaw.cumulative_modifier : 1;
+            int cumulativeModifier = (effectRaw.cumulative_modifier != null) ? effectRaw.cumulative_modifier : 1;
 
             // Build list of applicable nutrients
             // If nutrients are unspecified in file, this defaults to include every nutrient
+            List<Nutrient> effectNutrients = new ArrayList<>();
             if (effectRaw.nutrients.size() == 0) {
-                effect.nutrients.addAll(NutrientList.get());
+                effectNutrients.addAll(definitions.getNutrients());
             } else { // Field has been set, so fetch nutrients by name
                 for (String nutrientName : effectRaw.nutrients) {
-                    Nutrient nutrient = NutrientList.getByName(nutrientName);
-                    if (nutrient != null) effect.nutrients.add(nutrient); // Nutrient checks out, add to list
+                    Nutrient nutrient = definitions.getNutrient(nutrientName);
+                    if (nutrient != null) effectNutrients.add(nutrient); // Nutrient checks out, add to list
                     else Log.error("Nutrient " + nutrientName + " not found (" + effectRaw.name + ").");
                 }
             }
 
+            // Effect is read only from here on
+            Effect effect = new Effect(
+                effectRaw.name,
+                effectPotion,
+                amplifier,
+                effectRaw.minimum,
+                effectRaw.maximum,
+                detectionType,
+                effectNutrients,
+                cumulativeModifier);
+
             // Register effect
             effects.add(effect);
         }